@@ -0,0 +1,26 @@
+package org.maequise.benchmarks;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * <p>Persistence layer context shared by the benchmarks, started on the embedded H2 database
+ * of the {@code benchmark} profile</p>
+ */
+@SpringBootApplication(scanBasePackages = {"org.maequise.models"})
+public class BenchmarkApplication {
+    public static final String PROFILE = "benchmark";
+
+    /**
+     * @param args properties overriding the ones of the profile, e.g. {@code --datasource.batch-size=100}
+     */
+    public static ConfigurableApplicationContext start(String... args) {
+        var application = new SpringApplication(BenchmarkApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setAdditionalProfiles(PROFILE);
+
+        return application.run(args);
+    }
+}
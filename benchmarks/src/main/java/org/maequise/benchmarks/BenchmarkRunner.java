@@ -0,0 +1,47 @@
+package org.maequise.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <p>Run the suites single-threaded then multi-threaded with the gc profiler, writing one JSON report per run
+ * named after the project version so the reports of two releases can be compared</p>
+ * <p>The first argument is the regular expression of the benchmarks to include, the number of threads of the
+ * multi-threaded run is read from {@code benchmark.threads} (one per available processor when unset or 0)</p>
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        var include = args.length > 0 ? args[0] : ".*";
+        var version = System.getProperty("benchmark.version", "snapshot");
+        var output = Files.createDirectories(Path.of(System.getProperty("benchmark.output", "target/jmh")));
+
+        var threads = Integer.getInteger("benchmark.threads", 0);
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        run(include, 1, output.resolve("results-" + version + "-t1.json"));
+        run(include, threads, output.resolve("results-" + version + "-t" + threads + ".json"));
+    }
+
+    private static void run(String include, int threads, Path report) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .threads(threads)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(report.toString())
+                .build())
+                .run();
+    }
+}
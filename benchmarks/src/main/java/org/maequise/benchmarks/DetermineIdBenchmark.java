@@ -0,0 +1,74 @@
+package org.maequise.benchmarks;
+
+import jakarta.persistence.Id;
+import org.maequise.commons.exceptions.UnknownIdException;
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.EntityMetadata;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compare the cached {@link EntityMetadata} against the reflective scan previously done by
+ * {@code AbstractJpa.determineId} on every update</p>
+ * <p>Run with {@code -prof gc} to compare the allocation rate as well</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DetermineIdBenchmark {
+    private UserEntity entity;
+
+    @Setup
+    public void createEntity() {
+        this.entity = new UserEntity();
+        this.entity.setId(42);
+    }
+
+    @Benchmark
+    public Object reflectiveScan() {
+        return legacyDetermineId(entity);
+    }
+
+    @Benchmark
+    public Object cachedMetadata() {
+        return EntityMetadata.of(entity.getClass()).getId(entity);
+    }
+
+    /**
+     * <p>Copy of the former implementation, kept as the baseline of the benchmark</p>
+     */
+    private static Object legacyDetermineId(Object entity) {
+        var fields = entity.getClass().getDeclaredFields();
+
+        var field = Arrays.stream(fields).filter(f -> f.isAnnotationPresent(Id.class))
+                .findFirst()
+                .orElseThrow(() -> new UnknownIdException("You must define and ID !"));
+
+        try {
+            var method = Arrays.stream(entity.getClass().getDeclaredMethods())
+                    .filter(m -> m.getName().equalsIgnoreCase("get".concat(field.getName()))
+                            && m.getReturnType().equals(field.getType()))
+                    .findFirst();
+
+            return method.isPresent() ? method.get().invoke(entity) : new UnknownIdException("No method found !");
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new UnknownIdException("Error during the determining of the ID property");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DetermineIdBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
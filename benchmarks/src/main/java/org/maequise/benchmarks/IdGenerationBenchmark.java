@@ -0,0 +1,83 @@
+package org.maequise.benchmarks;
+
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.daos.UserDao;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Rows/sec of {@link UserDao#insert(Object)} and {@link UserDao#insertAll(java.util.Collection)} depending on the
+ * number of identifiers reserved per call to the sequence, {@code 1} being a call to the sequence for every row</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IdGenerationBenchmark {
+    private static final int ROWS = 1_000;
+
+    @Param({"1", "50", "500"})
+    private int allocationSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private UserDao userDao;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        //a database per allocation size, the increment of an existing sequence can't change
+        this.context = BenchmarkApplication.start(
+                "--datasource.url=jdbc:h2:mem:ids-" + allocationSize + ";DB_CLOSE_DELAY=-1",
+                "--datasource.id.allocation-size=" + allocationSize);
+        this.userDao = context.getBean(UserDao.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void purge() {
+        userDao.deleteAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserEntity insert() throws Exception {
+        return userDao.insert(createUser(sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Integer> insertAll() throws Exception {
+        return userDao.insertAll(IntStream.range(0, ROWS).mapToObj(i -> createUser(sequence.incrementAndGet())).toList());
+    }
+
+    private static UserEntity createUser(long index) {
+        var user = new UserEntity();
+
+        user.setUsername("user" + index);
+        user.setEmail("user" + index + "@mail");
+
+        return user;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IdGenerationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
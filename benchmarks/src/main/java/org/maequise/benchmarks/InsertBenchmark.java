@@ -0,0 +1,81 @@
+package org.maequise.benchmarks;
+
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.daos.UserDao;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Compare the rows/sec of {@link UserDao#insertAll(java.util.Collection)} against a loop over {@link UserDao#insert(Object)}
+ * on the embedded H2 database</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InsertBenchmark {
+    private static final int ROWS = 1_000;
+
+    private ConfigurableApplicationContext context;
+
+    private UserDao userDao;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        this.context = BenchmarkApplication.start();
+        this.userDao = context.getBean(UserDao.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void purge() {
+        userDao.deleteAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void loopInsert() throws Exception {
+        for (var user : createUsers()) {
+            userDao.insert(user);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Integer> batchedInsertAll() throws Exception {
+        return userDao.insertAll(createUsers());
+    }
+
+    private static List<UserEntity> createUsers() {
+        return IntStream.range(0, ROWS)
+                .mapToObj(i -> {
+                    var user = new UserEntity();
+
+                    user.setUsername("user" + i);
+                    user.setEmail("user" + i + "@mail");
+
+                    return user;
+                })
+                .toList();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InsertBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,88 @@
+package org.maequise.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import org.maequise.models.config.TenantIdentifierResolver;
+import org.maequise.models.jpa.daos.UserDao;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Throughput of the lookups by ID spread over 120 tenants, each one a schema of the shared pool, against the same
+ * lookups on the default schema, which measures the cost of the schema switch on every borrowed connection</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(8)
+public class MultiTenancyBenchmark {
+    private static final int TENANTS = 120;
+    private static final int ROWS = 1_000;
+
+    private ConfigurableApplicationContext context;
+
+    private UserDao userDao;
+
+    private String[] tenants;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        this.tenants = IntStream.rangeClosed(1, TENANTS).mapToObj(i -> "t" + i).toArray(String[]::new);
+        this.context = BenchmarkApplication.start("--datasource.multi-tenancy.enabled=true",
+                "--datasource.multi-tenancy.tenants=" + String.join(",", tenants));
+        this.userDao = context.getBean(UserDao.class);
+
+        var entityManager = context.getBean(EntityManager.class);
+        var transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        var schemas = new ArrayList<>(List.of(tenants));
+        schemas.add(TenantIdentifierResolver.DEFAULT_TENANT);
+
+        for (var tenant : schemas) {
+            TenantIdentifierResolver.onTenant(tenant, () -> transactionTemplate.execute(status -> entityManager.createNativeQuery(
+                            "insert into USERS (USER_ID, USERNAME, EMAIL) select X, 'user' || X, 'user' || X || '@mail' from SYSTEM_RANGE(1, ?1)")
+                    .setParameter(1, ROWS)
+                    .executeUpdate()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object defaultSchema() {
+        return userDao.findById(randomId());
+    }
+
+    @Benchmark
+    public Object tenantSchema() {
+        var tenant = tenants[ThreadLocalRandom.current().nextInt(TENANTS)];
+
+        return TenantIdentifierResolver.onTenant(tenant, () -> userDao.findById(randomId()));
+    }
+
+    private static int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, ROWS + 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MultiTenancyBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,81 @@
+package org.maequise.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.KeysetPage;
+import org.maequise.models.jpa.daos.UserDao;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compare the latency of a deep page fetched with {@code OFFSET/LIMIT} against the keyset pagination
+ * of {@link UserDao#fetchPage(Object, int)}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaginationBenchmark {
+    private static final int ROWS = 200_000;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1", "100", "1000", "3999"})
+    private int pageNumber;
+
+    private ConfigurableApplicationContext context;
+
+    private UserDao userDao;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        this.context = BenchmarkApplication.start();
+        this.userDao = context.getBean(UserDao.class);
+        this.entityManager = context.getBean(EntityManager.class);
+        this.transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        //the ids are contiguous, so the last id of the previous page is known without fetching it
+        transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery(
+                        "insert into USERS (USER_ID, USERNAME, EMAIL) select X, 'user' || X, 'user' || X || '@mail' from SYSTEM_RANGE(1, ?1)")
+                .setParameter(1, ROWS)
+                .executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        userDao.deleteAll();
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserEntity> offsetPage() {
+        return transactionTemplate.execute(status -> entityManager.createQuery("select e from UserEntity e order by e.id", UserEntity.class)
+                .setFirstResult(pageNumber * PAGE_SIZE)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList());
+    }
+
+    @Benchmark
+    public KeysetPage<UserEntity> keysetPage() {
+        return userDao.fetchPage(pageNumber * PAGE_SIZE, PAGE_SIZE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PaginationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,77 @@
+package org.maequise.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import org.maequise.models.jpa.daos.UserDao;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compare the listing of 100k users attached to the read-write transaction of the caller against the
+ * {@link UserDao#readOnly()} view, joined to the same transaction or in its own read-only transaction</p>
+ * <p>Run with the gc profiler, {@code gc.alloc.rate.norm} gives the heap allocated per listing of 100k rows,
+ * the difference being the snapshots kept for the dirty checking until the end of the transaction</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReadOnlyBenchmark {
+    private static final int ROWS = 100_000;
+    private static final String JPQL = "select e from UserEntity e";
+
+    private ConfigurableApplicationContext context;
+
+    private UserDao userDao;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        this.context = BenchmarkApplication.start();
+        this.userDao = context.getBean(UserDao.class);
+        this.transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        var entityManager = context.getBean(EntityManager.class);
+
+        transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery(
+                        "insert into USERS (USER_ID, USERNAME, EMAIL) select X, 'user' || X, 'user' || X || '@mail' from SYSTEM_RANGE(1, ?1)")
+                .setParameter(1, ROWS)
+                .executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        userDao.deleteAll();
+        context.close();
+    }
+
+    @Benchmark
+    public int attached() {
+        return transactionTemplate.execute(status -> userDao.fetchListByQuery(JPQL).size());
+    }
+
+    @Benchmark
+    public int readOnlyJoined() {
+        return transactionTemplate.execute(status -> userDao.readOnly().fetchListByQuery(JPQL).size());
+    }
+
+    @Benchmark
+    public int readOnly() {
+        return userDao.readOnly().fetchListByQuery(JPQL).size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReadOnlyBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,172 @@
+package org.maequise.benchmarks;
+
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.PurgeOptions;
+import org.maequise.models.jpa.daos.UserDao;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Throughput of every {@link org.maequise.models.jpa.JpaDao} operation of {@link UserDao} on the embedded H2 database</p>
+ * <p>The table is seeded with {@link #ROWS} users read by the fetch benchmarks, the rows created by the write
+ * benchmarks are purged after each iteration so every iteration starts from the same table</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserDaoBenchmark {
+    static final int ROWS = 10_000;
+    private static final int LIST_SIZE = 20;
+
+    private static final String BY_USERNAME_POSITIONAL = "select e from UserEntity e where e.username = ?1";
+    private static final String BY_USERNAME_NAMED = "select e from UserEntity e where e.username = :username";
+    private static final String BY_RANGE_POSITIONAL = "select e from UserEntity e where e.id between ?1 and ?2";
+    private static final String BY_RANGE_NAMED = "select e from UserEntity e where e.id between :first and :last";
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private UserDao userDao;
+
+    private List<Integer> ids;
+
+    private int lastSeededId;
+
+    @Setup(Level.Trial)
+    public void startContext() throws Exception {
+        this.context = BenchmarkApplication.start();
+        this.userDao = context.getBean(UserDao.class);
+
+        var users = IntStream.range(0, ROWS).mapToObj(i -> createUser("user" + i)).toList();
+        userDao.insertAll(users);
+
+        this.ids = users.stream().map(UserEntity::getId).toList();
+        this.lastSeededId = ids.get(ids.size() - 1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void purgeWrittenRows() throws Exception {
+        userDao.deleteAllInChunks(PurgeOptions.builder()
+                .predicate("e.id > :lastSeededId")
+                .params(Map.of("lastSeededId", lastSeededId))
+                .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        userDao.deleteAll();
+        context.close();
+    }
+
+    /**
+     * <p>Row created before each invocation of {@link #delete(DeleteTarget)}, outside the measured code</p>
+     * <p>{@link Level#Invocation} fixtures are acceptable here since a delete takes far more than a millisecond</p>
+     */
+    @State(Scope.Thread)
+    public static class DeleteTarget {
+        private UserEntity user;
+
+        @Setup(Level.Invocation)
+        public void insertUser(UserDaoBenchmark benchmark) throws Exception {
+            this.user = benchmark.userDao.insert(benchmark.createUser("delete" + benchmark.sequence.incrementAndGet()));
+        }
+    }
+
+    @Benchmark
+    public UserEntity insert() throws Exception {
+        return userDao.insert(createUser("insert" + sequence.incrementAndGet()));
+    }
+
+    /**
+     * <p>Merge a detached copy of a seeded user, the id being resolved through {@code determineId}</p>
+     */
+    @Benchmark
+    public UserEntity update() throws Exception {
+        var user = createUser("updated" + sequence.incrementAndGet());
+        user.setId(randomId());
+
+        return userDao.update(user);
+    }
+
+    @Benchmark
+    public boolean delete(DeleteTarget target) throws Exception {
+        return userDao.delete(target.user);
+    }
+
+    @Benchmark
+    public UserEntity findById() {
+        return userDao.findById(randomId());
+    }
+
+    @Benchmark
+    public UserEntity fetchByQueryWithPositionalParams() {
+        return userDao.fetchByQueryWithPositionalParams(BY_USERNAME_POSITIONAL, randomUsername());
+    }
+
+    @Benchmark
+    public UserEntity fetchByQueryWithNamedParams() {
+        return userDao.fetchByQueryWithNamedParams(BY_USERNAME_NAMED, Map.of("username", randomUsername()));
+    }
+
+    @Benchmark
+    public UserEntity fetchByNamedQuery() {
+        return userDao.fetchByNamedQuery(UserDao.FIND_BY_USERNAME, Map.of("username", randomUsername()));
+    }
+
+    @Benchmark
+    public List<UserEntity> fetchListByQueryWithPositionalParams() {
+        var first = randomId();
+
+        return userDao.fetchListByQueryWithPositionalParams(BY_RANGE_POSITIONAL, first, first + LIST_SIZE - 1);
+    }
+
+    @Benchmark
+    public List<UserEntity> fetchListByQueryWithNamedParams() {
+        var first = randomId();
+
+        return userDao.fetchListByQueryWithNamedParams(BY_RANGE_NAMED, Map.of("first", first, "last", first + LIST_SIZE - 1));
+    }
+
+    @Benchmark
+    public List<UserEntity> fetchListByNamedQuery() {
+        return userDao.fetchListByNamedQuery(UserDao.FIND_BY_USERNAME, Map.of("username", randomUsername()));
+    }
+
+    private int randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ROWS));
+    }
+
+    private static String randomUsername() {
+        return "user" + ThreadLocalRandom.current().nextInt(ROWS);
+    }
+
+    private UserEntity createUser(String username) {
+        var user = new UserEntity();
+
+        user.setUsername(username);
+        user.setEmail(username + "@mail");
+
+        return user;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserDaoBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -16,4 +16,15 @@ public class DeleteException extends Exception {
     public DeleteException(Throwable cause) {
         super(cause);
     }
+
+    protected DeleteException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+    /**
+     * @return an exception without stack trace nor suppressed exceptions, cheap to throw on an expected failure
+     */
+    public static DeleteException stackless(String message) {
+        return new DeleteException(message, null, false, false);
+    }
 }
@@ -19,4 +19,15 @@ public class InsertException extends Exception {
     public InsertException(Throwable cause) {
         super(cause);
     }
+
+    protected InsertException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+    /**
+     * <p>Exception without stack trace, for the expected failures handled by the caller, as a duplicate key</p>
+     */
+    public static InsertException stackless(String message) {
+        return new InsertException(message, null, false, false);
+    }
 }
@@ -16,4 +16,16 @@ public class UpdateException extends Exception {
     public UpdateException(Throwable cause) {
         super(cause);
     }
+
+    protected UpdateException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+    /**
+     * <p>Exception without stack trace, for the expected failures of the update where only the message matters,
+     * as an optimistic locking conflict: filling the stack trace is the main cost of an exception</p>
+     */
+    public static UpdateException stackless(String message) {
+        return new UpdateException(message, null, false, false);
+    }
 }
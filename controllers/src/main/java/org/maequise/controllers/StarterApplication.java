@@ -3,7 +3,7 @@ package org.maequise.controllers;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = {"org.maequise"})
 public class StarterApplication {
     public static void main(String[] args) {
         SpringApplication.run(StarterApplication.class, args);
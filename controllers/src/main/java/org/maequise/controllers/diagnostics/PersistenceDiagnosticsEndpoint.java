@@ -0,0 +1,93 @@
+package org.maequise.controllers.diagnostics;
+
+import org.maequise.models.monitoring.CacheRegionStatistics;
+import org.maequise.models.monitoring.ConnectionPoolStatistics;
+import org.maequise.models.monitoring.EntityCacheStatistics;
+import org.maequise.models.monitoring.PersistenceStatistics;
+import org.maequise.models.monitoring.QueryExecutionStatistics;
+import org.maequise.models.monitoring.QueryPlanCacheStatistics;
+import org.maequise.models.monitoring.SessionFactoryStatistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * <p>Diagnostics of the persistence: statistics of the session factory and of the slowest queries, counters of the
+ * regions of the second-level cache and state of the connection pools</p>
+ * <p>Actuator endpoint {@code persistence}, only reachable once added to
+ * {@code management.endpoints.web.exposure.include}, it reveals the JPQL of the queries and changes the statistics,
+ * so it belongs behind the access control of the management endpoints</p>
+ * <p>The statistics are collected only while enabled, with {@code datasource.statistics.enabled} at startup
+ * or a {@code POST /actuator/persistence} of {@code {"enabled": true}} at runtime, and cleared by a
+ * {@code DELETE /actuator/persistence}</p>
+ */
+@Component
+@Endpoint(id = "persistence")
+public class PersistenceDiagnosticsEndpoint {
+    private final PersistenceStatistics persistenceStatistics;
+
+    private final ObjectProvider<EntityCacheStatistics> entityCacheStatistics;
+
+    public PersistenceDiagnosticsEndpoint(PersistenceStatistics persistenceStatistics,
+                                          ObjectProvider<EntityCacheStatistics> entityCacheStatistics) {
+        this.persistenceStatistics = persistenceStatistics;
+        this.entityCacheStatistics = entityCacheStatistics;
+    }
+
+    /**
+     * @param queries maximum number of queries returned, the slowest first, 20 by default
+     */
+    @ReadOperation
+    public PersistenceDiagnostics diagnostics(@Nullable Integer queries) {
+        var sessionFactory = persistenceStatistics.sessionFactory();
+        var queryPlanCache = persistenceStatistics.queryPlanCache();
+
+        return new PersistenceDiagnostics(persistenceStatistics.isEnabled(),
+                sessionFactory,
+                sessionFactory.secondLevelCacheHitRatio(),
+                sessionFactory.queryCacheHitRatio(),
+                queryPlanCache,
+                queryPlanCache.hitRatio(),
+                persistenceStatistics.queries().stream().limit(queries == null ? 20 : Math.max(queries, 0)).toList(),
+                entityCacheStatistics.stream()
+                        .flatMap(statistics -> statistics.regions().stream())
+                        .map(region -> new CacheRegion(region, region.hitRatio()))
+                        .toList(),
+                persistenceStatistics.connectionPools());
+    }
+
+    @WriteOperation
+    public boolean enableStatistics(boolean enabled) {
+        persistenceStatistics.setEnabled(enabled);
+
+        return persistenceStatistics.isEnabled();
+    }
+
+    @DeleteOperation
+    public void clearStatistics() {
+        persistenceStatistics.clear();
+    }
+
+    /**
+     * <p>The ratios, derived from the counters, are repeated as components to be serialized</p>
+     */
+    public record PersistenceDiagnostics(boolean statisticsEnabled,
+                                         SessionFactoryStatistics sessionFactory,
+                                         double secondLevelCacheHitRatio,
+                                         double queryCacheHitRatio,
+                                         QueryPlanCacheStatistics queryPlanCache,
+                                         double queryPlanCacheHitRatio,
+                                         List<QueryExecutionStatistics> slowestQueries,
+                                         List<CacheRegion> cacheRegions,
+                                         List<ConnectionPoolStatistics> connectionPools) {
+    }
+
+    public record CacheRegion(CacheRegionStatistics counters, double hitRatio) {
+    }
+}
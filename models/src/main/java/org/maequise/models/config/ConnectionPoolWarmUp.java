@@ -0,0 +1,70 @@
+package org.maequise.models.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * <p>Open the connections of the pools once every bean is created, before the application serves its first requests</p>
+ * <p>Each pool is filled up to {@code datasource.warm-up.connections}, or its minimum idle size by default,
+ * by holding that many validated connections at the same time. Disabled with {@code datasource.warm-up.enabled=false}</p>
+ */
+@Component
+@ConditionalOnProperty(name = "datasource.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ConnectionPoolWarmUp implements SmartInitializingSingleton {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource dataSource;
+
+    private final int connections;
+
+    public ConnectionPoolWarmUp(DataSource dataSource, @Value("${datasource.warm-up.connections:0}") int connections) {
+        this.dataSource = dataSource;
+        this.connections = connections;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            for (var pool : ConnectionPools.of(dataSource)) {
+                warmUp(pool);
+            }
+        } catch (SQLException e) {
+            //the pool fills itself lazily, a failed warm-up only costs the latency of the first requests
+            log.warn("Error during the warm-up of the connection pools", e);
+        }
+    }
+
+    void warmUp(HikariDataSource pool) throws SQLException {
+        var start = System.nanoTime();
+        var target = Math.min(connections > 0 ? connections : pool.getMinimumIdle(), pool.getMaximumPoolSize());
+        var borrowed = new ArrayList<Connection>(target);
+
+        try {
+            for (var i = 0; i < target; i++) {
+                var connection = pool.getConnection();
+                borrowed.add(connection);
+
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    log.warn("Invalid connection opened during the warm-up of the pool {}", pool.getPoolName());
+                }
+            }
+        } finally {
+            for (var connection : borrowed) {
+                connection.close();
+            }
+        }
+
+        log.info("Pool {} warmed up with {} connections in {} ms", pool.getPoolName(), borrowed.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,27 @@
+package org.maequise.models.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * <p>Access to the Hikari pools behind the data source, the primary one and the replicas or the shards when the data source is routed</p>
+ */
+public final class ConnectionPools {
+    private ConnectionPools() {
+    }
+
+    public static List<HikariDataSource> of(DataSource dataSource) throws SQLException {
+        if (dataSource instanceof ReadWriteDataSource readWriteDataSource) {
+            return readWriteDataSource.pools();
+        }
+
+        if (dataSource instanceof ShardedDataSource shardedDataSource) {
+            return shardedDataSource.pools();
+        }
+
+        return List.of(dataSource.unwrap(HikariDataSource.class));
+    }
+}
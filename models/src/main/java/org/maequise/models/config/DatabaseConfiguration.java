@@ -1,52 +1,205 @@
 package org.maequise.models.config;
 
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.DriverDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.maequise.models.entities.generators.PooledSequenceGenerator;
+import org.maequise.models.monitoring.QueryLogListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.sql.DataSource;
+import java.net.URI;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @Configuration
-@EntityScan("org.maequise.models.entities")
+@EntityScan(DatabaseConfiguration.ENTITIES_PACKAGE)
 @AllArgsConstructor
 public class DatabaseConfiguration {
+    static final String ENTITIES_PACKAGE = "org.maequise.models.entities";
+
     private Environment env;
 
+    /**
+     * <p>Pool of the primary database, routed with the pools of the replicas declared under
+     * {@code datasource.replicas[*]} when there are some</p>
+     * <p>The replicas serve the read-only transactions, picked by {@code datasource.replica-selection}
+     * ({@code round-robin} by default, or {@code least-busy}). Their credentials default to the primary ones</p>
+     * <p>The pool settings are bound from {@code datasource.pool}, then {@code datasource.replicas[*].pool} for a replica,
+     * with the names of the {@link HikariConfig} properties: {@code maximum-pool-size}, {@code minimum-idle},
+     * {@code connection-timeout}, {@code idle-timeout}, {@code max-lifetime}, {@code keepalive-time},
+     * {@code leak-detection-threshold} (in milliseconds)... The statement cache of the driver is configured through
+     * {@code datasource.pool.data-source-properties}, e.g. {@code cachePrepStmts} and {@code prepStmtCacheSize} for MySQL
+     * or {@code preparedStatementCacheQueries} for PostgreSQL</p>
+     * <p>The databases declared under {@code datasource.shards[*]} split the rows with the primary one instead,
+     * the primary database being the shard 0, see {@link ShardedDataSource}. The shards can't have replicas,
+     * nor be cached with {@code datasource.cache.enabled}</p>
+     */
     @Bean
     public DataSource dataSource() {
-        return new HikariDataSource(dataSourceConfig());
+        var primary = new HikariDataSource(dataSourceConfig("datasource", "primary"));
+
+        var replicas = new ArrayList<HikariDataSource>();
+        for (var i = 0; env.getProperty(replicaPrefix(i) + ".url") != null; i++) {
+            replicas.add(new HikariDataSource(dataSourceConfig(replicaPrefix(i), "replica-" + i)));
+        }
+
+        var shards = new ArrayList<HikariDataSource>();
+        shards.add(primary);
+        for (var i = 0; env.getProperty(shardPrefix(i) + ".url") != null; i++) {
+            shards.add(new HikariDataSource(dataSourceConfig(shardPrefix(i), "shard-" + (i + 1))));
+        }
+
+        if (shards.size() > 1) {
+            if (!replicas.isEmpty()) {
+                shards.forEach(HikariDataSource::close);
+                replicas.forEach(HikariDataSource::close);
+                throw new IllegalStateException("The replicas can't be combined with the shards");
+            }
+
+            //the keys of the query cache ignore the shard, every shard would get the results cached for the first one
+            if (env.getProperty("datasource.cache.enabled", Boolean.class, false)) {
+                shards.forEach(HikariDataSource::close);
+                throw new IllegalStateException("The cache can't be combined with the shards");
+            }
+
+            return new ShardedDataSource(shards);
+        }
+
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+
+        var selection = ReadWriteDataSource.ReplicaSelection.of(env.getProperty("datasource.replica-selection", "round-robin"));
+
+        return new ReadWriteDataSource(primary, replicas, selection);
+    }
+
+    private static String replicaPrefix(int index) {
+        return "datasource.replicas[" + index + "]";
     }
 
-    private HikariConfig dataSourceConfig() {
+    private static String shardPrefix(int index) {
+        return "datasource.shards[" + index + "]";
+    }
+
+    private HikariConfig dataSourceConfig(String prefix, String poolName) {
         var conf = new HikariConfig();
 
-        conf.setJdbcUrl(env.getProperty("datasource.url"));
-        conf.setUsername(env.getProperty("datasource.username"));
-        conf.setPassword(env.getProperty("datasource.password"));
+        conf.setPoolName(poolName);
+        conf.setJdbcUrl(env.getProperty(prefix + ".url"));
+        conf.setUsername(dataSourceProperty(prefix, "username"));
+        conf.setPassword(dataSourceProperty(prefix, "password"));
 
-        var schema = env.getProperty("datasource.schema");
+        var schema = dataSourceProperty(prefix, "schema");
 
         if(schema != null){
             conf.setSchema(schema);
         }
 
+        //the settings shared by every pool, then the ones of the replica
+        var binder = Binder.get(env);
+        binder.bind("datasource.pool", Bindable.ofInstance(conf));
+        if (!"datasource".equals(prefix)) {
+            binder.bind(prefix + ".pool", Bindable.ofInstance(conf));
+        }
+
+        if (conf.getJdbcUrl() != null && env.getProperty("datasource.query-log.enabled", Boolean.class, true)) {
+            logStatements(conf);
+        }
+
         return conf;
     }
 
+    /**
+     * <p>Insert the {@link QueryLogListener} between the pool and the driver, the pools stay the data sources
+     * seen by the application</p>
+     * <p>The statements slower than {@code datasource.query-log.slow-threshold} (1s by default) are logged, and
+     * the statements repeated more than {@code datasource.query-log.repeated-threshold} times (20 by default)
+     * in a transaction are reported as likely N+1 selects. The values of the parameters of the slow statements
+     * are only logged with {@code datasource.query-log.parameters}</p>
+     */
+    private void logStatements(HikariConfig conf) {
+        var listener = new QueryLogListener(
+                env.getProperty("datasource.query-log.slow-threshold", Duration.class, Duration.ofSeconds(1)),
+                env.getProperty("datasource.query-log.repeated-threshold", Integer.class, 20),
+                env.getProperty("datasource.query-log.parameters", Boolean.class, false));
+        var driver = new DriverDataSource(conf.getJdbcUrl(), conf.getDriverClassName(), conf.getDataSourceProperties(),
+                conf.getUsername(), conf.getPassword());
+
+        conf.setDataSource(ProxyDataSourceBuilder.create(conf.getPoolName(), driver)
+                .listener(listener)
+                .build());
+    }
+
+    private String dataSourceProperty(String prefix, String name) {
+        var value = env.getProperty(prefix + "." + name);
+
+        return value != null ? value : env.getProperty("datasource." + name);
+    }
+
     @Bean
     public JpaProperties jpaProperties() {
         var jpaProperties = new JpaProperties();
 
         jpaProperties.setGenerateDdl(true);
-        jpaProperties.setShowSql(true);
+        //echo of every statement, for the development only, the slow ones are already logged by the QueryLogListener
+        jpaProperties.setShowSql(env.getProperty("datasource.show-sql", Boolean.class, false));
         jpaProperties.setGenerateDdl(true);
 
+        //enable the JDBC batching, required by the bulk operations of the DAOs
+        var properties = jpaProperties.getProperties();
+        properties.put("hibernate.jdbc.batch_size", env.getProperty("datasource.batch-size", "50"));
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+
+        //block of identifiers reserved per call to the sequences of the entities
+        properties.put(PooledSequenceGenerator.ALLOCATION_SIZE_SETTING,
+                env.getProperty("datasource.id.allocation-size", String.valueOf(PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE)));
+        properties.put(PooledSequenceGenerator.OPTIMIZER_SETTING,
+                env.getProperty("datasource.id.optimizer", PooledSequenceGenerator.DEFAULT_OPTIMIZER));
+
+        //bounded cache of the parsed queries, hibernate doesn't cache the plans without an explicit size
+        properties.put("hibernate.query.plan_cache_enabled", "true");
+        properties.put("hibernate.query.plan_cache_max_size", env.getProperty("datasource.query-plan-cache.max-size", "2048"));
+        //pad the IN lists to powers of 2, so the chunks of IDs share a few statement plans
+        properties.put("hibernate.query.in_clause_parameter_padding", "true");
+        properties.put("hibernate.generate_statistics", env.getProperty("datasource.statistics.enabled", "false"));
+
+        //the cache is opt-in, otherwise hibernate would enable it as soon as a JCache provider is on the classpath
+        var cacheEnabled = env.getProperty("datasource.cache.enabled", "false");
+        properties.put("hibernate.cache.use_second_level_cache", cacheEnabled);
+        properties.put("hibernate.cache.use_query_cache", cacheEnabled);
+
         return jpaProperties;
     }
 
@@ -58,4 +211,156 @@ public class DatabaseConfiguration {
 
         return hibernateProperties;
     }
+
+    /**
+     * <p>In-process cache backing the second-level and query caches, enabled with {@code datasource.cache.enabled}</p>
+     * <p>Each region is bounded by {@code datasource.cache.regions.<region>.max-size} and {@code .ttl},
+     * defaulting to {@code datasource.cache.max-size} and {@code datasource.cache.ttl}.
+     * The statistics of the regions are published as JSR-107 {@code CacheStatistics} MBeans</p>
+     */
+    @Bean
+    @ConditionalOnProperty(name = "datasource.cache.enabled", havingValue = "true")
+    public CacheManager entityCacheManager() {
+        var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        var cacheManager = provider.getCacheManager(URI.create("entity-cache:" + UUID.randomUUID()), provider.getDefaultClassLoader());
+
+        for (var region : findEntityRegions()) {
+            cacheManager.createCache(region, regionConfiguration(region));
+        }
+
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                regionConfiguration(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME));
+
+        //the timestamps must outlive the cached query results, so this region is neither bounded nor expired
+        var timestampsConfiguration = new CaffeineConfiguration<>();
+        timestampsConfiguration.setStatisticsEnabled(true);
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestampsConfiguration);
+
+        return cacheManager;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.cache.enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", entityCacheManager);
+            //every region is declared above with its bounds, a missing one is a mistake
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        };
+    }
+
+    /**
+     * <p>Schema-per-tenant mode, enabled with {@code datasource.multi-tenancy.enabled}: the sessions of a tenant,
+     * see {@link TenantIdentifierResolver#onTenant}, use the schema {@code datasource.multi-tenancy.schema-prefix}
+     * followed by the tenant, through the connections of the primary pool</p>
+     * <p>A tenant borrows at most {@code datasource.multi-tenancy.max-connections-per-tenant} connections at the same time,
+     * half of the pool by default</p>
+     */
+    @Bean
+    @ConditionalOnProperty(name = "datasource.multi-tenancy.enabled", havingValue = "true")
+    public TenantConnectionProvider tenantConnectionProvider(DataSource dataSource) throws SQLException {
+        if (dataSource instanceof ReadWriteDataSource || dataSource instanceof ShardedDataSource) {
+            throw new IllegalStateException("The multi-tenancy can't be combined with the replicas or the shards");
+        }
+
+        var pool = dataSource.unwrap(HikariDataSource.class);
+
+        return new TenantConnectionProvider(pool,
+                env.getProperty("datasource.multi-tenancy.schema-prefix", "TENANT_"),
+                env.getProperty("datasource.multi-tenancy.max-connections-per-tenant", Integer.class,
+                        Math.max(1, pool.getMaximumPoolSize() / 2)));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.multi-tenancy.enabled", havingValue = "true")
+    public TenantIdentifierResolver tenantIdentifierResolver() {
+        return new TenantIdentifierResolver();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.multi-tenancy.enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer multiTenancyCustomizer(TenantConnectionProvider tenantConnectionProvider,
+                                                                TenantIdentifierResolver tenantIdentifierResolver) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, tenantConnectionProvider);
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, tenantIdentifierResolver);
+        };
+    }
+
+    /**
+     * <p>Generate the schema on every shard and in the schema of each tenant listed in {@code datasource.multi-tenancy.tenants},
+     * not only on the default connections</p>
+     */
+    @Bean
+    public HibernatePropertiesCustomizer scopedSchemaCustomizer(DataSource dataSource,
+                                                                ObjectProvider<TenantConnectionProvider> tenantConnectionProvider) {
+        var scopes = new ArrayList<Consumer<Runnable>>();
+
+        if (dataSource instanceof ShardedDataSource shardedDataSource) {
+            for (var shard = 0; shard < shardedDataSource.shardCount(); shard++) {
+                if (shard != ShardedDataSource.DEFAULT_SHARD) {
+                    var target = shard;
+
+                    scopes.add(task -> ShardedDataSource.onShard(target, () -> {
+                        task.run();
+                        return null;
+                    }));
+                }
+            }
+        }
+
+        var provider = tenantConnectionProvider.getIfAvailable();
+
+        for (var tenant : provider == null ? new String[0]
+                : env.getProperty("datasource.multi-tenancy.tenants", String[].class, new String[0])) {
+            scopes.add(task -> {
+                try {
+                    provider.createSchema(tenant);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("The schema of the tenant " + tenant + " can't be created", e);
+                }
+
+                TenantIdentifierResolver.onTenant(tenant, () -> {
+                    task.run();
+                    return null;
+                });
+            });
+        }
+
+        return properties -> {
+            if (!scopes.isEmpty()) {
+                properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                        (IntegratorProvider) () -> List.of(new ScopedSchemaIntegrator(scopes)));
+            }
+        };
+    }
+
+    private CaffeineConfiguration<Object, Object> regionConfiguration(String region) {
+        var maxSize = env.getProperty("datasource.cache.regions." + region + ".max-size", Long.class,
+                env.getProperty("datasource.cache.max-size", Long.class, 10_000L));
+        var ttl = env.getProperty("datasource.cache.regions." + region + ".ttl", Duration.class,
+                env.getProperty("datasource.cache.ttl", Duration.class, Duration.ofMinutes(10)));
+
+        var configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+
+        return configuration;
+    }
+
+    private static List<String> findEntityRegions() {
+        var scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Cache.class));
+
+        return scanner.findCandidateComponents(ENTITIES_PACKAGE).stream()
+                .map(candidate -> ClassUtils.resolveClassName(candidate.getBeanClassName(), DatabaseConfiguration.class.getClassLoader()))
+                .map(entityClass -> {
+                    var region = entityClass.getAnnotation(Cache.class).region();
+
+                    return region.isEmpty() ? entityClass.getName() : region;
+                })
+                .toList();
+    }
 }
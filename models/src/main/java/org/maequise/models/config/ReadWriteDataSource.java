@@ -0,0 +1,96 @@
+package org.maequise.models.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * <p>Route the connections of the read-only transactions to the replicas, every other connection to the primary</p>
+ * <p>The physical connection is only fetched at the first statement, once the transaction is synchronized,
+ * so the read-only flag of the transaction is known when the target is chosen</p>
+ */
+public class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    public enum ReplicaSelection {
+        ROUND_ROBIN, LEAST_BUSY;
+
+        public static ReplicaSelection of(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private final HikariDataSource primary;
+
+    private final List<HikariDataSource> replicas;
+
+    private final ReplicaSelection selection;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteDataSource(HikariDataSource primary, List<HikariDataSource> replicas, ReplicaSelection selection) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+
+        var targets = new HashMap<Object, Object>();
+        targets.put(primary.getPoolName(), primary);
+        this.replicas.forEach(replica -> targets.put(replica.getPoolName(), replica));
+
+        var router = new Router();
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+
+        setTargetDataSource(router);
+    }
+
+    /**
+     * @return the primary pool followed by the pools of the replicas
+     */
+    public List<HikariDataSource> pools() {
+        return Stream.concat(Stream.of(primary), replicas.stream()).toList();
+    }
+
+    HikariDataSource selectReplica() {
+        return switch (selection) {
+            case ROUND_ROBIN -> replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            case LEAST_BUSY -> replicas.stream()
+                    .min(Comparator.comparingInt(ReadWriteDataSource::activeConnections))
+                    .orElseThrow();
+        };
+    }
+
+    private static int activeConnections(HikariDataSource dataSource) {
+        var pool = dataSource.getHikariPoolMXBean();
+
+        //a pool not started yet has no busy connection
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+    private final class Router extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    ? selectReplica().getPoolName()
+                    : primary.getPoolName();
+        }
+    }
+}
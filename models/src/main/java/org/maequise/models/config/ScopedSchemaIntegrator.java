@@ -0,0 +1,47 @@
+package org.maequise.models.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * <p>Apply the schema management of the session factory again in each of the given scopes, hibernate only runs it
+ * once on the default connections. A scope runs the task with the connections routed elsewhere,
+ * e.g. to another shard of a {@link ShardedDataSource} or to the schema of a tenant</p>
+ * <p>The drops delayed to the shutdown by {@code create-drop} are run in their scope when the factory is closed</p>
+ */
+class ScopedSchemaIntegrator implements Integrator {
+    private final List<Consumer<Runnable>> scopes;
+
+    private final List<Runnable> delayedDrops = new ArrayList<>();
+
+    ScopedSchemaIntegrator(List<Consumer<Runnable>> scopes) {
+        this.scopes = List.copyOf(scopes);
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        var serviceRegistry = sessionFactory.getServiceRegistry();
+        var settings = new HashMap<>(sessionFactory.getProperties());
+
+        for (var scope : scopes) {
+            scope.accept(() -> SchemaManagementToolCoordinator.process(metadata, serviceRegistry, settings,
+                    (DelayedDropAction action) -> delayedDrops.add(() -> scope.accept(() -> action.perform(serviceRegistry)))));
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        delayedDrops.forEach(Runnable::run);
+        delayedDrops.clear();
+    }
+}
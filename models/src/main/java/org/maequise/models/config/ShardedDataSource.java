@@ -0,0 +1,94 @@
+package org.maequise.models.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <p>Route the connections to one of several databases holding distinct rows of the same tables</p>
+ * <p>The shard is chosen by the calling thread with {@link #onShard(int, ShardCall)} before the transaction begins,
+ * the connections opened outside go to the shard {@value #DEFAULT_SHARD}, which also holds the sequences
+ * and is the one the schema is generated on first</p>
+ */
+public class ShardedDataSource extends AbstractRoutingDataSource implements Closeable {
+    public static final int DEFAULT_SHARD = 0;
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    @FunctionalInterface
+    public interface ShardCall<R, E extends Exception> {
+        R call() throws E;
+    }
+
+    private final List<HikariDataSource> shards;
+
+    public ShardedDataSource(List<HikariDataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+
+        this.shards = List.copyOf(shards);
+
+        var targets = new HashMap<Object, Object>();
+        for (var i = 0; i < this.shards.size(); i++) {
+            targets.put(i, this.shards.get(i));
+        }
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(this.shards.get(DEFAULT_SHARD));
+        //an unknown shard is a routing bug, it must not silently fall back to the default one
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * @return the pools of the shards, in the order of their index
+     */
+    public List<HikariDataSource> pools() {
+        return shards;
+    }
+
+    /**
+     * @return the shard selected by the current thread, {@value #DEFAULT_SHARD} if none
+     */
+    public static int currentShard() {
+        var shard = CURRENT_SHARD.get();
+
+        return shard == null ? DEFAULT_SHARD : shard;
+    }
+
+    /**
+     * <p>Run the call with the connections of the current thread routed to the shard, the previous shard is restored after</p>
+     */
+    public static <R, E extends Exception> R onShard(int shard, ShardCall<R, E> call) throws E {
+        var previous = CURRENT_SHARD.get();
+
+        CURRENT_SHARD.set(shard);
+        try {
+            return call.call();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentShard();
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,261 @@
+package org.maequise.models.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Connections of the tenants, each tenant owning a schema named {@code schemaPrefix + tenant}. Every tenant shares
+ * the same pool, the schema of the connection is switched when it is borrowed and restored when it is returned</p>
+ * <p>A tenant can't borrow more than {@code maxConnectionsPerTenant} connections at the same time, beyond it waits
+ * up to the connection timeout of the pool, so a busy tenant can't starve the others. The pool only gets the time
+ * left by this wait. The schema of a tenant is resolved and checked against the metadata of the database with its
+ * first connection, then cached, so the check and the creation of a schema count in the quota as well</p>
+ * <p>The connections of the {@value TenantIdentifierResolver#DEFAULT_TENANT} tenant stay on the default schema,
+ * without quota</p>
+ */
+public class TenantConnectionProvider implements MultiTenantConnectionProvider {
+    private static final Pattern TENANT_PATTERN = Pattern.compile("\\w{1,50}");
+
+    private final HikariDataSource dataSource;
+
+    private final String schemaPrefix;
+
+    private final int maxConnectionsPerTenant;
+
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    private final Map<Connection, Tenant> borrowed = new ConcurrentHashMap<>();
+
+    private volatile String defaultSchema;
+
+    private static final class Tenant {
+        private final Semaphore permits;
+
+        private volatile String schema;
+
+        private Tenant(Semaphore permits) {
+            this.permits = permits;
+        }
+    }
+
+    public TenantConnectionProvider(HikariDataSource dataSource, String schemaPrefix, int maxConnectionsPerTenant) {
+        if (maxConnectionsPerTenant < 1) {
+            throw new IllegalArgumentException("The connections per tenant must be positive");
+        }
+
+        this.dataSource = dataSource;
+        this.schemaPrefix = schemaPrefix;
+        this.maxConnectionsPerTenant = maxConnectionsPerTenant;
+    }
+
+    /**
+     * <p>Hibernate asks for any connection at startup and for the schema management, they are routed with
+     * the tenant of the current thread so the schema of a tenant can be generated</p>
+     */
+    @Override
+    public Connection getAnyConnection() throws SQLException {
+        return getConnection(TenantIdentifierResolver.currentTenant());
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        release(connection);
+    }
+
+    @Override
+    public Connection getConnection(String tenantIdentifier) throws SQLException {
+        if (TenantIdentifierResolver.DEFAULT_TENANT.equals(tenantIdentifier)) {
+            return dataSource.getConnection();
+        }
+
+        var tenant = tenant(tenantIdentifier);
+        var connection = acquire(tenantIdentifier, tenant);
+
+        try {
+            if (tenant.schema == null) {
+                tenant.schema = checkSchema(tenantIdentifier, connection);
+            }
+
+            connection.setSchema(tenant.schema);
+            borrowed.put(connection, tenant);
+
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.close();
+            } finally {
+                tenant.permits.release();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
+        release(connection);
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    /**
+     * @return the number of connections borrowed by the tenant
+     */
+    public int borrowedConnections(String tenantIdentifier) {
+        var tenant = tenants.get(tenantIdentifier);
+
+        return tenant == null ? 0 : maxConnectionsPerTenant - tenant.permits.availablePermits();
+    }
+
+    /**
+     * <p>Create the schema of the tenant if it doesn't exist yet</p>
+     */
+    public void createSchema(String tenantIdentifier) throws SQLException {
+        var tenant = tenant(tenantIdentifier);
+        var connection = acquire(tenantIdentifier, tenant);
+
+        try (connection; var statement = connection.createStatement()) {
+            statement.execute("create schema if not exists " + schemaName(tenantIdentifier, connection.getMetaData()));
+        } finally {
+            tenant.permits.release();
+        }
+    }
+
+    /**
+     * <p>Borrow a connection of the pool within the quota of the tenant, the permit must be released with the
+     * connection</p>
+     */
+    private Connection acquire(String tenantIdentifier, Tenant tenant) throws SQLException {
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(dataSource.getConnectionTimeout());
+
+        try {
+            if (!tenant.permits.tryAcquire(dataSource.getConnectionTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("The tenant " + tenantIdentifier + " already uses its "
+                        + maxConnectionsPerTenant + " connections, request timed out after "
+                        + dataSource.getConnectionTimeout() + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection of the tenant " + tenantIdentifier, e);
+        }
+
+        try {
+            return borrow(deadline);
+        } catch (SQLException | RuntimeException e) {
+            tenant.permits.release();
+            throw e;
+        }
+    }
+
+    private Connection borrow(long deadline) throws SQLException {
+        //the pool only exposes a timeout of its own through its internal API
+        if (dataSource.getHikariPoolMXBean() instanceof HikariPool pool) {
+            return pool.getConnection(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+
+        return dataSource.getConnection();
+    }
+
+    /**
+     * <p>The connections of the tenants are returned with the schema of the pool, a connection borrowed from the pool
+     * by another user doesn't land in the schema of a tenant</p>
+     */
+    private void release(Connection connection) throws SQLException {
+        var tenant = borrowed.remove(connection);
+
+        try {
+            if (tenant != null) {
+                connection.setSchema(defaultSchema);
+            }
+        } finally {
+            connection.close();
+
+            if (tenant != null) {
+                tenant.permits.release();
+            }
+        }
+    }
+
+    private Tenant tenant(String tenantIdentifier) {
+        var tenant = tenants.get(tenantIdentifier);
+
+        if (tenant != null) {
+            return tenant;
+        }
+
+        checkIdentifier(tenantIdentifier);
+
+        return tenants.computeIfAbsent(tenantIdentifier, id -> new Tenant(new Semaphore(maxConnectionsPerTenant)));
+    }
+
+    /**
+     * <p>Check the schema of the tenant with a connection of the tenant, still on the schema of the pool</p>
+     */
+    private String checkSchema(String tenantIdentifier, Connection connection) throws SQLException {
+        var metaData = connection.getMetaData();
+        var schema = schemaName(tenantIdentifier, metaData);
+
+        try (var schemas = metaData.getSchemas(null, schema)) {
+            if (!schemas.next()) {
+                throw new SQLException("No schema " + schema + " for the tenant " + tenantIdentifier);
+            }
+        }
+
+        if (defaultSchema == null) {
+            defaultSchema = connection.getSchema();
+        }
+
+        return schema;
+    }
+
+    private String schemaName(String tenantIdentifier, DatabaseMetaData metaData) throws SQLException {
+        var schema = schemaPrefix + tenantIdentifier;
+
+        //the schemas are created unquoted, so their name is stored in the case of the database
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return schema.toUpperCase(Locale.ROOT);
+        }
+
+        return metaData.storesLowerCaseIdentifiers() ? schema.toLowerCase(Locale.ROOT) : schema;
+    }
+
+    private static void checkIdentifier(String tenantIdentifier) {
+        if (tenantIdentifier == null || !TENANT_PATTERN.matcher(tenantIdentifier).matches()) {
+            throw new IllegalArgumentException("Invalid tenant : " + tenantIdentifier);
+        }
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || unwrapType.isInstance(dataSource);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return (T) this;
+        }
+
+        if (unwrapType.isInstance(dataSource)) {
+            return (T) dataSource;
+        }
+
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+}
@@ -0,0 +1,56 @@
+package org.maequise.models.config;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * <p>Tenant of the sessions opened by the current thread, selected with {@link #onTenant(String, TenantCall)}
+ * before the transaction begins. Outside, the sessions use the {@value #DEFAULT_TENANT} tenant,
+ * which is the default schema of the pool</p>
+ */
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver {
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT_TENANT = new ThreadLocal<>();
+
+    @FunctionalInterface
+    public interface TenantCall<R, E extends Exception> {
+        R call() throws E;
+    }
+
+    /**
+     * @return the tenant selected by the current thread, {@value #DEFAULT_TENANT} if none
+     */
+    public static String currentTenant() {
+        var tenant = CURRENT_TENANT.get();
+
+        return tenant == null ? DEFAULT_TENANT : tenant;
+    }
+
+    /**
+     * <p>Run the call with the sessions of the current thread bound to the tenant, the previous tenant is restored after</p>
+     */
+    public static <R, E extends Exception> R onTenant(String tenant, TenantCall<R, E> call) throws E {
+        var previous = CURRENT_TENANT.get();
+
+        CURRENT_TENANT.set(tenant);
+        try {
+            return call.call();
+        } finally {
+            if (previous == null) {
+                CURRENT_TENANT.remove();
+            } else {
+                CURRENT_TENANT.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return currentTenant();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return true;
+    }
+}
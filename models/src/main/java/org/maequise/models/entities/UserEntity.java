@@ -2,14 +2,24 @@ package org.maequise.models.entities;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.maequise.models.entities.generators.PooledSequenceGenerator;
 
 @Entity
 @Table(name = "USERS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Data
 public class UserEntity {
     @Id
     @Column(name = "USER_ID")
-    @GeneratedValue
+    @GeneratedValue(generator = "users_seq")
+    @GenericGenerator(name = "users_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "USERS_SEQ"))
     private Integer id;
 
     @Column(name ="USERNAME")
@@ -0,0 +1,87 @@
+package org.maequise.models.entities.generators;
+
+import org.hibernate.MappingException;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.GenericGenerators;
+import org.hibernate.boot.registry.classloading.spi.ClassLoaderService;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * <p>Sequence generator reserving a block of identifiers per call to the sequence, so the inserts of a batch
+ * only hit the sequence once per block</p>
+ * <p>The size of the blocks and the optimizer ({@code pooled} or {@code pooled-lo}) are read from the settings
+ * {@value #ALLOCATION_SIZE_SETTING} and {@value #OPTIMIZER_SETTING}, shared by every entity using the generator,
+ * unless the entity declares its own {@code increment_size} or {@code optimizer} parameter.
+ * Usage on an entity:</p>
+ * <pre>
+ * &#64;GeneratedValue(generator = "users_seq")
+ * &#64;GenericGenerator(name = "users_seq", strategy = PooledSequenceGenerator.STRATEGY,
+ *         parameters = &#64;Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "USERS_SEQ"))
+ * </pre>
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    public static final String STRATEGY = "org.maequise.models.entities.generators.PooledSequenceGenerator";
+
+    public static final String ALLOCATION_SIZE_SETTING = "maequise.id.allocation_size";
+    public static final String OPTIMIZER_SETTING = "maequise.id.optimizer";
+
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+    public static final String DEFAULT_OPTIMIZER = "pooled";
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        var settings = serviceRegistry.getService(ConfigurationService.class);
+
+        //hibernate always fills the increment of the generic generators with the JPA default of 50,
+        //only the annotation tells if the entity chose it
+        if (!declaredParameter(parameters, serviceRegistry, OptimizableGenerator.INCREMENT_PARAM)) {
+            parameters.put(OptimizableGenerator.INCREMENT_PARAM,
+                    settings.getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.STRING, String.valueOf(DEFAULT_ALLOCATION_SIZE)));
+        }
+
+        parameters.putIfAbsent(OptimizableGenerator.OPT_PARAM,
+                settings.getSetting(OPTIMIZER_SETTING, StandardConverters.STRING, DEFAULT_OPTIMIZER));
+
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    /**
+     * @return {@code true} if the {@link GenericGenerator} of the entity declares the parameter
+     */
+    private static boolean declaredParameter(Properties parameters, ServiceRegistry serviceRegistry, String name) {
+        var generatorName = parameters.getProperty(IdentifierGenerator.GENERATOR_NAME);
+        var entityName = parameters.getProperty(IdentifierGenerator.ENTITY_NAME);
+
+        if (generatorName == null || entityName == null) {
+            return false;
+        }
+
+        var elements = new ArrayList<AnnotatedElement>();
+
+        for (Class<?> type = serviceRegistry.getService(ClassLoaderService.class).classForName(entityName);
+             type != null && type != Object.class; type = type.getSuperclass()) {
+            elements.add(type);
+            elements.addAll(Arrays.asList(type.getDeclaredFields()));
+            elements.addAll(Arrays.asList(type.getDeclaredMethods()));
+        }
+
+        return elements.stream()
+                .flatMap(element -> Stream.concat(Stream.ofNullable(element.getAnnotation(GenericGenerator.class)),
+                        Stream.ofNullable(element.getAnnotation(GenericGenerators.class)).flatMap(all -> Arrays.stream(all.value()))))
+                .filter(generator -> generator.name().equals(generatorName))
+                .flatMap(generator -> Arrays.stream(generator.parameters()))
+                .anyMatch(parameter -> parameter.name().equals(name));
+    }
+}
@@ -1,5 +1,6 @@
 package org.maequise.models.jpa;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,25 +8,83 @@ import org.maequise.commons.exceptions.DeleteException;
 import org.maequise.commons.exceptions.InsertException;
 import org.maequise.commons.exceptions.UnknownIdException;
 import org.maequise.commons.exceptions.UpdateException;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Repository
 @Transactional
 @Slf4j
 public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final int DEFAULT_FETCH_SIZE = 500;
+    private static final int DEFAULT_MAX_IN_PARAMETERS = 1000;
+    private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)*");
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * <p>Proxy of this DAO, the read-only view calls it so its calls keep the transactional and monitoring advices</p>
+     */
+    @Lazy
+    @Autowired
+    private JpaDao<ID, TYPE> self;
+
     private Class<TYPE> clazz = (Class<TYPE>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[1];
 
+    /**
+     * <p>Number of entities persisted before the persistence context is flushed and the batch detached,
+     * aligned by default with the {@code hibernate.jdbc.batch_size} of {@link org.maequise.models.config.DatabaseConfiguration}</p>
+     */
+    @Value("${datasource.batch-size:" + DEFAULT_BATCH_SIZE + "}")
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * <p>Number of rows retrieved by each round trip of the cursor used by the streaming queries</p>
+     */
+    @Value("${datasource.fetch-size:" + DEFAULT_FETCH_SIZE + "}")
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /**
+     * <p>Store the results of the fetch queries in the query cache, enabled with the second-level cache</p>
+     */
+    @Value("${datasource.cache.enabled:false}")
+    private boolean queryCacheEnabled;
+
+    /**
+     * <p>Maximum number of IDs bound to a single {@code IN} clause, below the bind parameter limits of the drivers</p>
+     */
+    @Value("${datasource.max-in-parameters:" + DEFAULT_MAX_IN_PARAMETERS + "}")
+    private int maxInParameters = DEFAULT_MAX_IN_PARAMETERS;
+
+    private ReadOnlyDao<ID, TYPE> readOnlyView;
+
     @Override
     public TYPE insert(TYPE entity) throws InsertException {
         try {
@@ -39,6 +98,42 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
         }
     }
 
+    @Override
+    public List<Integer> insertAll(Collection<TYPE> entities) throws InsertException {
+        return insertAll(entities.stream());
+    }
+
+    @Override
+    public List<Integer> insertAll(Stream<TYPE> entities) throws InsertException {
+        var batchCounts = new ArrayList<Integer>();
+        var iterator = entities.iterator();
+        var batch = new ArrayList<TYPE>(batchSize);
+
+        try {
+            while (iterator.hasNext()) {
+                var entity = iterator.next();
+
+                entityManager.persist(entity);
+                batch.add(entity);
+
+                if (batch.size() == batchSize) {
+                    batchCounts.add(batch.size());
+                    flushAndDetach(batch);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                batchCounts.add(batch.size());
+                flushAndDetach(batch);
+            }
+
+            return batchCounts;
+        } catch (PersistenceException e) {
+            log.error("Error during the batch insertion after {} batches", batchCounts.size(), e);
+            throw new InsertException("Error during the persisting of the batch", e);
+        }
+    }
+
     @Override
     public TYPE update(TYPE entity) throws UpdateException {
         try {
@@ -59,6 +154,114 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
         }
     }
 
+    @Override
+    @Transactional(rollbackFor = UpdateException.class)
+    @SuppressWarnings("deprecation")
+    public int updateAll(Collection<TYPE> entities) throws UpdateException {
+        var metadata = EntityMetadata.of(clazz);
+        var session = entityManager.unwrap(Session.class);
+        var updated = 0;
+        var batch = new ArrayList<TYPE>(batchSize);
+
+        try {
+            for (var entity : entities) {
+                var id = metadata.getId(entity);
+
+                if (id == null) {
+                    throw new UpdateException("Cannot update an entity without ID, it must be inserted");
+                }
+
+                //reattaching a detached copy fails while another instance with the same ID is managed
+                evictManaged(id);
+                //update reattaches the entity without the SELECT merge would run first
+                session.update(entity);
+                batch.add(entity);
+                updated++;
+
+                if (batch.size() == batchSize) {
+                    flushAndDetach(batch);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                flushAndDetach(batch);
+            }
+
+            return updated;
+        } catch (PersistenceException e) {
+            log.error("Error during the batch update after {} entities", updated - batch.size(), e);
+            throw new UpdateException("Error during the update of the batch", e);
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = UpdateException.class)
+    public boolean updateFields(ID id, Map<String, Object> fields) throws UpdateException {
+        return updateFields(id, null, fields);
+    }
+
+    @Override
+    @Transactional(rollbackFor = UpdateException.class)
+    public boolean updateFields(ID id, Object expectedVersion, Map<String, Object> fields) throws UpdateException {
+        var metadata = EntityMetadata.of(clazz);
+        var version = metadata.getVersionAttribute();
+
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one field to update is required");
+        }
+        if (expectedVersion != null && version == null) {
+            throw new IllegalArgumentException("The entity " + metadata.getEntityName() + " isn't versioned");
+        }
+
+        var assignments = new ArrayList<String>();
+        var values = new ArrayList<>();
+
+        for (var field : fields.entrySet()) {
+            var attribute = field.getKey();
+
+            if (!ATTRIBUTE_PATTERN.matcher(attribute).matches()
+                    || attribute.equals(metadata.getIdAttribute()) || attribute.equals(version)) {
+                throw new IllegalArgumentException("Invalid attribute to update: " + attribute);
+            }
+
+            assignments.add("e." + attribute + " = :p" + values.size());
+            values.add(field.getValue());
+        }
+
+        //the versioned keyword makes hibernate increment the version of the row
+        var jpql = "update " + (version != null ? "versioned " : "") + metadata.getEntityName() + " e set "
+                + String.join(", ", assignments)
+                + " where e." + metadata.getIdAttribute() + " = :id"
+                + (expectedVersion != null ? " and e." + version + " = :version" : "");
+
+        try {
+            var query = entityManager.createQuery(jpql);
+
+            for (var i = 0; i < values.size(); i++) {
+                query.setParameter("p" + i, values.get(i));
+            }
+            query.setParameter("id", id);
+            if (expectedVersion != null) {
+                query.setParameter("version", expectedVersion);
+            }
+
+            var updated = query.executeUpdate() > 0;
+
+            //the managed instance, if any, no longer matches the row
+            evictManaged(id);
+
+            if (!updated && expectedVersion != null) {
+                throw UpdateException.stackless("The entity " + metadata.getEntityName() + " with ID " + id
+                        + " was updated or deleted since the version " + expectedVersion);
+            }
+
+            return updated;
+        } catch (PersistenceException e) {
+            log.error("Error during the update of the fields {} of the entity with ID {}", fields.keySet(), id, e);
+            throw new UpdateException("Error during the update of the fields", e);
+        }
+    }
+
     @Override
     public boolean delete(TYPE entity) throws DeleteException {
         try {
@@ -74,6 +277,43 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
     }
 
     @Override
+    @Transactional(rollbackFor = DeleteException.class)
+    public boolean deleteById(ID id) throws DeleteException {
+        if (id == null) {
+            throw new IllegalArgumentException("The ID of the entity to delete is required");
+        }
+
+        return deleteAllById(List.of(id)) > 0;
+    }
+
+    @Override
+    @Transactional(rollbackFor = DeleteException.class)
+    public int deleteAllById(Collection<ID> ids) throws DeleteException {
+        var jpql = EntityMetadata.of(clazz).getDeleteByIdsJpql();
+        var distinctIds = List.copyOf(new LinkedHashSet<>(ids));
+        var deleted = 0;
+
+        try {
+            for (var from = 0; from < distinctIds.size(); from += maxInParameters) {
+                var chunk = distinctIds.subList(from, Math.min(from + maxInParameters, distinctIds.size()));
+
+                //a managed instance would still be returned by find, or written back on flush
+                chunk.forEach(this::evictManaged);
+
+                deleted += entityManager.createQuery(jpql)
+                        .setParameter("ids", chunk)
+                        .executeUpdate();
+            }
+
+            return deleted;
+        } catch (PersistenceException e) {
+            log.error("Error during the delete by ID after {} deleted rows", deleted, e);
+            throw new DeleteException("Error during the delete by ID", e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public TYPE findById(ID id) {
         try {
             return entityManager.find(clazz, id);
@@ -84,9 +324,67 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<TYPE> findAllById(Collection<ID> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        var session = entityManager.unwrap(Session.class);
+
+        //without an explicit cache mode, hibernate skips the second-level cache
+        return session.byMultipleIds(clazz)
+                .with(session.getCacheMode())
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .withBatchSize(maxInParameters)
+                .multiLoad(List.copyOf(ids));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsById(ID id) {
+        return exists("e." + EntityMetadata.of(clazz).getIdAttribute() + " = ?1", id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean exists(String predicate, Object... params) {
+        var query = entityManager.createQuery(selectWhere("1", predicate), Integer.class);
+
+        bindParams(query, params);
+        cacheable(query);
+
+        //the database stops at the first matching row
+        query.setMaxResults(1);
+
+        return !query.getResultList().isEmpty();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return count(null, new Object[0]);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count(String predicate, Object... params) {
+        var query = entityManager.createQuery(selectWhere("count(*)", predicate), Long.class);
+
+        bindParams(query, params);
+        cacheable(query);
+
+        return query.getSingleResult();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public TYPE fetchByQuery(String jpql) {
         try {
             Query query = entityManager.createQuery(jpql);
+
+            cacheable(query);
             return (TYPE) query.getSingleResult();
         } catch (Exception e) {
             log.error("Error during the fetch query : " + jpql, e);
@@ -96,10 +394,13 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<TYPE> fetchListByQuery(String jpql) {
         try {
             Query query = entityManager.createQuery(jpql);
 
+            cacheable(query);
+
             return query.getResultList();
         } catch (Exception e) {
             log.error("");
@@ -109,6 +410,7 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public TYPE fetchByQueryWithParams(String jpql, Object... params) {
         if (params.length >= 1 && !(params[0] instanceof Map)) {
             return fetchByQueryWithPositionalParams(jpql, params);
@@ -118,19 +420,22 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public TYPE fetchByQueryWithPositionalParams(String jpql, Object... params) {
         try {
             TypedQuery<TYPE> query = entityManager.createQuery(jpql, clazz);
 
+            cacheable(query);
+
             for (int i = 1; i <= params.length; i++) {
                 query.setParameter(i, params[i - 1]);
             }
 
             return query.getSingleResult();
         } catch (NoResultException e) {
-            log.error("No entry found", e);
+            log.debug("No entry found with the query {}", jpql);
         } catch (NonUniqueResultException e) {
-            log.error("More than 1 result found", e);
+            log.error("More than 1 entry found with the query {}", jpql);
         }
 
         //default behavior
@@ -138,24 +443,48 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public TYPE fetchByQueryWithNamedParams(String jpql, Map<String, Object> params) {
         try {
             var query = entityManager.createQuery(jpql, clazz);
 
+            cacheable(query);
+
             params.forEach(query::setParameter);
 
             return query.getSingleResult();
         } catch (NoResultException e) {
-            log.error("No entry found with the query {} and params", jpql, params);
-            log.error("Error during the fetch", e);
+            log.debug("No entry found with the query {} and params {}", jpql, params);
         } catch (NonUniqueResultException e) {
-            log.error("More than 1 entry found with the query {} and params", jpql, params);
-            log.error("Error during the fetch", e);
+            log.error("More than 1 entry found with the query {} and params {}", jpql, params);
         }
         return null;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Optional<TYPE> fetchOptional(String jpql, Object... params) {
+        var query = entityManager.createQuery(jpql, clazz);
+
+        cacheable(query);
+        bindParams(query, params);
+
+        return uniqueResult(query, jpql);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TYPE> fetchOptionalByNamedQuery(String name, Object... params) {
+        var query = entityManager.createNamedQuery(qualifiedName(name), clazz);
+
+        cacheable(query);
+        bindParams(query, params);
+
+        return uniqueResult(query, name);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<TYPE> fetchListByQueryWithParams(String jpql, Object... params) {
         if (params.length >= 1 && !(params[0] instanceof Map)) {
             return fetchListByQueryWithPositionalParams(jpql, params);
@@ -165,10 +494,13 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<TYPE> fetchListByQueryWithPositionalParams(String jpql, Object... params) {
         try {
             var query = entityManager.createQuery(jpql, clazz);
 
+            cacheable(query);
+
             for (var i = 1; i <= params.length; i++) {
                 query.setParameter(i, params[i - 1]);
             }
@@ -182,10 +514,13 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<TYPE> fetchListByQueryWithNamedParams(String jpql, Map<String, Object> params) {
         try {
             var query = entityManager.createQuery(jpql, clazz);
 
+            cacheable(query);
+
             params.forEach(query::setParameter);
 
             return query.getResultList();
@@ -197,10 +532,257 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
         return Collections.emptyList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<TYPE> fetchFirstByQuery(String jpql, int maxResults, Object... params) {
+        if (maxResults < 1) {
+            throw new IllegalArgumentException("The maximum of results must be positive");
+        }
+
+        var query = entityManager.createQuery(jpql, clazz);
+
+        cacheable(query);
+        bindParams(query, params);
+
+        return query.setMaxResults(maxResults).getResultList();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<TYPE> fetchStreamByQuery(String jpql) {
+        return streamResults(entityManager.createQuery(jpql, clazz));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<TYPE> fetchStreamByQueryWithPositionalParams(String jpql, Object... params) {
+        var query = entityManager.createQuery(jpql, clazz);
+
+        for (var i = 1; i <= params.length; i++) {
+            query.setParameter(i, params[i - 1]);
+        }
+
+        return streamResults(query);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<TYPE> fetchStreamByQueryWithNamedParams(String jpql, Map<String, Object> params) {
+        var query = entityManager.createQuery(jpql, clazz);
+
+        params.forEach(query::setParameter);
+
+        return streamResults(query);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <R> R fetchProjection(String jpql, Class<R> projection, Object... params) {
+        var mapper = ProjectionMapper.of(projection);
+
+        try {
+            var query = projectionQuery(jpql, params);
+
+            cacheable(query);
+
+            return mapper.rowMapper().apply(query.getSingleResult());
+        } catch (NoResultException e) {
+            log.debug("No entry found with the projection query {} and params {}", jpql, params);
+        } catch (NonUniqueResultException e) {
+            log.error("More than 1 entry found with the projection query {} and params {}", jpql, params);
+        }
+
+        return null;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <R> Optional<R> fetchProjectionOptional(String jpql, Class<R> projection, Object... params) {
+        var mapper = ProjectionMapper.of(projection);
+        var query = projectionQuery(jpql, params);
+
+        cacheable(query);
+
+        return uniqueResult(query, jpql).map(mapper.rowMapper());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <R> List<R> fetchProjectionList(String jpql, Class<R> projection, Object... params) {
+        var mapper = ProjectionMapper.of(projection);
+
+        try {
+            var query = projectionQuery(jpql, params);
+
+            cacheable(query);
+
+            return query.getResultList().stream()
+                    .map(mapper.rowMapper())
+                    .toList();
+        } catch (PersistenceException e) {
+            log.error("Error during the execution of the projection query {} with params {}", jpql, params);
+            log.error("Error encountered", e);
+        }
+
+        return Collections.emptyList();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <R> Stream<R> fetchProjectionStream(String jpql, Class<R> projection, Object... params) {
+        var mapper = ProjectionMapper.of(projection);
+        var query = projectionQuery(jpql, params);
+
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+
+        return query.getResultStream()
+                .map(mapper.rowMapper());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<TYPE> fetchPage(Object lastSeen, int pageSize) {
+        return fetchPage(EntityMetadata.of(clazz).getIdAttribute(), lastSeen, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<TYPE> fetchPage(String sortAttribute, Object lastSeen, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The size of the page must be positive");
+        }
+
+        if (!ATTRIBUTE_PATTERN.matcher(sortAttribute).matches()) {
+            throw new IllegalArgumentException("Invalid sort attribute : " + sortAttribute);
+        }
+
+        var idAttribute = EntityMetadata.of(clazz).getIdAttribute();
+        //the ID breaks the ties of a key that isn't unique, otherwise the rows sharing the last key of a page are skipped
+        var tiebreak = !sortAttribute.equals(idAttribute);
+
+        if (tiebreak && lastSeen != null && !(lastSeen instanceof KeysetPage.Cursor)) {
+            throw new IllegalArgumentException("The cursor of a page sorted on " + sortAttribute + " must be a KeysetPage.Cursor");
+        }
+
+        if (!tiebreak && lastSeen instanceof KeysetPage.Cursor) {
+            throw new IllegalArgumentException("The cursor of a page sorted on the ID is the last ID, not a KeysetPage.Cursor");
+        }
+
+        var key = "e." + sortAttribute;
+        var id = "e." + idAttribute;
+        var jpql = tiebreak
+                ? "select e, " + key + ", " + id + " from " + EntityMetadata.of(clazz).getEntityName() + " e"
+                + (lastSeen == null ? "" : " where " + key + " > :lastKey or (" + key + " = :lastKey and " + id + " > :lastId)")
+                + " order by " + key + ", " + id
+                : "select e, " + key + " from " + EntityMetadata.of(clazz).getEntityName() + " e"
+                + (lastSeen == null ? "" : " where " + key + " > :lastSeen")
+                + " order by " + key;
+
+        try {
+            var query = entityManager.createQuery(jpql, Object[].class);
+
+            if (lastSeen instanceof KeysetPage.Cursor cursor) {
+                query.setParameter("lastKey", cursor.key());
+                query.setParameter("lastId", cursor.id());
+            } else if (lastSeen != null) {
+                query.setParameter("lastSeen", lastSeen);
+            }
+
+            //one more row tells if a next page exists
+            query.setMaxResults(pageSize + 1);
+
+            var rows = query.getResultList();
+            var hasNext = rows.size() > pageSize;
+            var content = rows.stream()
+                    .limit(pageSize)
+                    .map(row -> clazz.cast(row[0]))
+                    .toList();
+            var last = hasNext ? rows.get(pageSize - 1) : null;
+
+            return new KeysetPage<>(content, last == null ? null : tiebreak ? new KeysetPage.Cursor(last[1], last[2]) : last[1], hasNext);
+        } catch (PersistenceException e) {
+            //an empty page would be taken for the end of the data
+            throw new DataRetrievalFailureException("Error during the execution of the page query " + jpql + " after " + lastSeen, e);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long deleteAllInChunks(PurgeOptions options) throws DeleteException {
+        if (options.getChunkSize() < 1) {
+            throw new IllegalArgumentException("The size of the chunks must be positive");
+        }
+
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        var totalDeleted = 0L;
+        Object lastId = null;
+
+        try {
+            while (!options.getCancellation().getAsBoolean()) {
+                var lastSeen = lastId;
+                var chunk = transaction.execute(status -> deleteChunk(options, lastSeen));
+
+                if (chunk == null) {
+                    break;
+                }
+
+                totalDeleted += chunk.deleted();
+                lastId = chunk.lastId();
+
+                options.getProgressListener().accept(totalDeleted);
+            }
+
+            return totalDeleted;
+        } catch (RuntimeException e) {
+            log.error("Error during the chunked delete after {} rows", totalDeleted, e);
+            throw new DeleteException("Error during the chunked delete after " + totalDeleted + " rows", e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TYPE fetchByNamedQuery(String name, Object... params) {
+        try {
+            var query = entityManager.createNamedQuery(qualifiedName(name), clazz);
+
+            cacheable(query);
+            bindParams(query, params);
+
+            return query.getSingleResult();
+        } catch (NoResultException e) {
+            log.debug("No entry found with the query {} and params {}", name, params);
+        } catch (Exception e) {
+            log.error("Error during the execution of the query {} with params {}", name, params);
+            log.error("Error encountered", e);
+        }
+
+        return null;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TYPE> fetchListByNamedQuery(String name, Object... params) {
+        try {
+            var query = entityManager.createNamedQuery(qualifiedName(name), clazz);
+
+            cacheable(query);
+            bindParams(query, params);
+
+            return query.getResultList();
+        } catch (Exception e) {
+            log.error("Error during the execution of the query {} with params {}", name, params);
+            log.error("Error encountered", e);
+        }
+
+        return Collections.emptyList();
+    }
+
     @Override
     public int deleteAll() {
         try {
-            var query = entityManager.createQuery("delete from " + clazz.getSimpleName() + " e");
+            var query = entityManager.createQuery(EntityMetadata.of(clazz).getDeleteAllJpql());
 
             var totalDeleted =  query.executeUpdate();
 
@@ -214,22 +796,183 @@ public abstract class AbstractJpa<ID, TYPE> implements JpaDao<ID, TYPE> {
         return 0;
     }
 
-    private Object determineId(TYPE entity) {
-        var fields = entity.getClass().getDeclaredFields();
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ReadOnlyDao<ID, TYPE> readOnly() {
+        //stateless, creating it twice on a race is harmless
+        if (readOnlyView == null) {
+            readOnlyView = new ReadOnlyJpaDao<>(self == null ? this : self, entityManager, transactionManager);
+        }
 
-        var field = Arrays.stream(fields).filter(f -> f.isAnnotationPresent(Id.class))
-                .findFirst()
-                .orElseThrow(() -> new UnknownIdException("You must define and ID !"));
+        return readOnlyView;
+    }
 
-        try {
-            var method = Arrays.stream(entity.getClass().getDeclaredMethods())
-                    .filter(m -> m.getName().equalsIgnoreCase("get".concat(field.getName()))
-                            && m.getReturnType().equals(field.getType()))
-                    .findFirst();
+    /**
+     * <p>Templates of the queries of the DAO, by name, registered as named queries at startup</p>
+     * <p>Their JPQL is parsed once and validated when the application starts, then executed by name
+     * with {@link #fetchByNamedQuery(String, Object...)} and {@link #fetchListByNamedQuery(String, Object...)}</p>
+     */
+    protected Map<String, String> queryTemplates() {
+        return Collections.emptyMap();
+    }
+
+    @PostConstruct
+    void registerQueryTemplates() {
+        var templates = queryTemplates();
+
+        if (templates.isEmpty()) {
+            return;
+        }
+
+        var entityManagerFactory = entityManager.getEntityManagerFactory();
+
+        try (var validationEntityManager = entityManagerFactory.createEntityManager()) {
+            templates.forEach((name, jpql) -> {
+                try {
+                    entityManagerFactory.addNamedQuery(qualifiedName(name), validationEntityManager.createQuery(jpql, clazz));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalStateException("Invalid query template " + name + " : " + jpql, e);
+                }
+            });
+        }
+    }
+
+    private String qualifiedName(String name) {
+        return EntityMetadata.of(clazz).getEntityName() + "." + name;
+    }
+
+    private String selectWhere(String selection, String predicate) {
+        return "select " + selection + " from " + EntityMetadata.of(clazz).getEntityName() + " e"
+                + (predicate == null ? "" : " where " + predicate);
+    }
+
+    private void bindParams(Query query, Object... params) {
+        if (params.length == 1 && params[0] instanceof Map<?, ?> namedParams) {
+            namedParams.forEach((name, value) -> query.setParameter((String) name, value));
+        } else {
+            for (var i = 1; i <= params.length; i++) {
+                query.setParameter(i, params[i - 1]);
+            }
+        }
+    }
+
+    /**
+     * <p>Tuple query whose rows are never registered in the persistence context, an entity selected in the tuple
+     * is loaded read-only so no snapshot is kept for the dirty checking</p>
+     */
+    private TypedQuery<Tuple> projectionQuery(String jpql, Object... params) {
+        var query = entityManager.createQuery(jpql, Tuple.class);
+
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        bindParams(query, params);
 
-            return method.isPresent() ? method.get().invoke(entity) : new UnknownIdException("No method found !");
-        } catch (InvocationTargetException | IllegalAccessException e) {
-            throw new UnknownIdException("Error during the determining of the ID property");
+        return query;
+    }
+
+    /**
+     * <p>Read at most 2 rows, enough to tell a miss, a single result and a non unique result apart
+     * without building any exception for the miss</p>
+     */
+    private <R> Optional<R> uniqueResult(TypedQuery<R> query, String jpql) {
+        var results = query.setMaxResults(2).getResultList();
+
+        if (results.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException("More than 1 entry found with the query " + jpql, 1);
+        }
+
+        return results.isEmpty() ? Optional.empty() : Optional.ofNullable(results.get(0));
+    }
+
+    private void cacheable(Query query) {
+        if (queryCacheEnabled) {
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        }
+    }
+
+    /**
+     * <p>Open a forward only cursor on the query, each row is detached as soon as it is read,
+     * so the persistence context doesn't grow with the size of the result</p>
+     */
+    private Stream<TYPE> streamResults(TypedQuery<TYPE> query) {
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+
+        return query.getResultStream()
+                .map(this::detach);
+    }
+
+    private TYPE detach(TYPE entity) {
+        entityManager.detach(entity);
+
+        return entity;
+    }
+
+    /**
+     * <p>Flush the batch, then detach its entities only, so the persistence context doesn't grow with the number
+     * of entities written. The other entities managed by the transaction of the caller stay managed</p>
+     */
+    private void flushAndDetach(List<TYPE> batch) {
+        entityManager.flush();
+        batch.forEach(entityManager::detach);
+        batch.clear();
+    }
+
+    /**
+     * <p>Detach the instance with the ID from the persistence context, without loading it if it isn't managed</p>
+     */
+    private void evictManaged(Object id) {
+        var session = entityManager.unwrap(SessionImplementor.class);
+        var persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(clazz);
+        var managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+
+        if (managed != null) {
+            session.evict(managed);
         }
     }
+
+    /**
+     * <p>Delete the next chunk of rows following {@code lastId}</p>
+     *
+     * @return the deleted chunk, {@code null} if no row remains
+     */
+    private Chunk deleteChunk(PurgeOptions options, Object lastId) {
+        var metadata = EntityMetadata.of(clazz);
+        var id = "e." + metadata.getIdAttribute();
+
+        var conditions = new ArrayList<String>();
+        if (lastId != null) {
+            conditions.add(id + " > :lastId");
+        }
+        if (options.getPredicate() != null) {
+            conditions.add("(" + options.getPredicate() + ")");
+        }
+
+        var selectIds = entityManager.createQuery("select " + id + " from " + metadata.getEntityName() + " e"
+                + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions))
+                + " order by " + id, Object.class);
+
+        if (lastId != null) {
+            selectIds.setParameter("lastId", lastId);
+        }
+        options.getParams().forEach(selectIds::setParameter);
+        selectIds.setMaxResults(options.getChunkSize());
+
+        var ids = selectIds.getResultList();
+
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        var delete = entityManager.createQuery(metadata.getDeleteByIdsJpql());
+        delete.setParameter("ids", ids);
+
+        return new Chunk(delete.executeUpdate(), ids.get(ids.size() - 1));
+    }
+
+    private record Chunk(int deleted, Object lastId) {
+    }
+
+    private Object determineId(TYPE entity) {
+        return EntityMetadata.of(entity.getClass()).getId(entity);
+    }
 }
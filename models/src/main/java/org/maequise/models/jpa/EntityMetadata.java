@@ -0,0 +1,267 @@
+package org.maequise.models.jpa;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import org.maequise.commons.exceptions.UnknownIdException;
+
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * <p>Metadata of an entity class, resolved once by reflection then cached per class</p>
+ * <p>The {@code @Id} (or {@code @EmbeddedId}) is searched through the whole class hierarchy, on the fields
+ * as well as on the getters, and is read back through a {@link MethodHandle}. The {@code @Version}, if any,
+ * is searched the same way, and is read and written through the field of the same name</p>
+ */
+public final class EntityMetadata {
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType MUTATOR_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<EntityMetadata> CACHE = new ClassValue<>() {
+        @Override
+        protected EntityMetadata computeValue(Class<?> type) {
+            return new EntityMetadata(type);
+        }
+    };
+
+    private final String entityName;
+
+    private final String deleteAllJpql;
+
+    private final String deleteByIdsJpql;
+
+    private final String idAttribute;
+
+    private final Class<?> idType;
+
+    private final MethodHandle idAccessor;
+
+    private final String versionAttribute;
+
+    private final MethodHandle versionAccessor;
+
+    private final MethodHandle versionMutator;
+
+    private EntityMetadata(Class<?> entityClass) {
+        var entity = entityClass.getAnnotation(Entity.class);
+
+        this.entityName = entity != null && !entity.name().isEmpty() ? entity.name() : entityClass.getSimpleName();
+        this.deleteAllJpql = "delete from " + entityName + " e";
+
+        var idMember = findIdMember(entityClass);
+
+        if (idMember instanceof Method getter) {
+            this.idAttribute = Introspector.decapitalize(getter.getName().replaceFirst("^(get|is)", ""));
+            this.idType = getter.getReturnType();
+            this.idAccessor = unreflect(getter);
+        } else {
+            var field = (Field) idMember;
+
+            this.idAttribute = field.getName();
+            this.idType = field.getType();
+            this.idAccessor = findGetter(entityClass, field);
+        }
+
+        this.versionAttribute = findVersionAttribute(entityClass);
+
+        var versionField = versionAttribute != null ? findField(entityClass, versionAttribute) : null;
+
+        this.versionAccessor = versionField != null ? unreflectField(versionField, false) : null;
+        this.versionMutator = versionField != null ? unreflectField(versionField, true) : null;
+        this.deleteByIdsJpql = deleteAllJpql + " where e." + idAttribute + " in :ids";
+    }
+
+    /**
+     * @param entityClass class of the entity
+     * @return the metadata of the class, computed on the first call only
+     * @throws UnknownIdException if no {@code @Id} is defined in the hierarchy of the class
+     */
+    public static EntityMetadata of(Class<?> entityClass) {
+        return CACHE.get(entityClass);
+    }
+
+    /**
+     * @return the name of the entity to use in the JPQL queries
+     */
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public String getDeleteAllJpql() {
+        return deleteAllJpql;
+    }
+
+    /**
+     * @return the JPQL deleting the entities whose ID is in the {@code ids} parameter
+     */
+    public String getDeleteByIdsJpql() {
+        return deleteByIdsJpql;
+    }
+
+    public String getIdAttribute() {
+        return idAttribute;
+    }
+
+    public Class<?> getIdType() {
+        return idType;
+    }
+
+    /**
+     * @return the name of the {@code @Version} attribute, {@code null} if the entity isn't versioned
+     */
+    public String getVersionAttribute() {
+        return versionAttribute;
+    }
+
+    /**
+     * @param entity instance of the class described by this metadata
+     * @return the value of the identifier, can be {@code null} for a transient entity
+     */
+    public Object getId(Object entity) {
+        try {
+            return idAccessor.invokeExact(entity);
+        } catch (Throwable e) {
+            throw new UnknownIdException("Error during the determining of the ID property");
+        }
+    }
+
+    /**
+     * @param entity instance of the class described by this metadata
+     * @return the value of the {@code @Version}
+     * @throws IllegalStateException if the entity isn't versioned by one of its fields
+     */
+    public Object getVersion(Object entity) {
+        if (versionAccessor == null) {
+            throw new IllegalStateException("The entity " + entityName + " has no version field");
+        }
+
+        try {
+            return versionAccessor.invokeExact(entity);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Error during the reading of the version of " + entityName, e);
+        }
+    }
+
+    /**
+     * <p>Restore the {@code @Version} of an instance, e.g. incremented by a flush then rolled back</p>
+     *
+     * @throws IllegalStateException if the entity isn't versioned by one of its fields
+     */
+    public void setVersion(Object entity, Object version) {
+        if (versionMutator == null) {
+            throw new IllegalStateException("The entity " + entityName + " has no version field");
+        }
+
+        try {
+            versionMutator.invokeExact(entity, version);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Error during the writing of the version of " + entityName, e);
+        }
+    }
+
+    private static AccessibleObject findIdMember(Class<?> entityClass) {
+        for (var type = entityClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (var field : type.getDeclaredFields()) {
+                if (isId(field)) {
+                    return field;
+                }
+            }
+
+            for (var method : type.getDeclaredMethods()) {
+                if (isId(method) && method.getParameterCount() == 0) {
+                    return method;
+                }
+            }
+        }
+
+        throw new UnknownIdException("You must define and ID !");
+    }
+
+    private static String findVersionAttribute(Class<?> entityClass) {
+        for (var type = entityClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (var field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Version.class)) {
+                    return field.getName();
+                }
+            }
+
+            for (var method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Version.class) && method.getParameterCount() == 0) {
+                    return Introspector.decapitalize(method.getName().replaceFirst("^(get|is)", ""));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static Field findField(Class<?> entityClass, String name) {
+        for (var type = entityClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                return type.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                //declared by a superclass
+            }
+        }
+
+        return null;
+    }
+
+    private static MethodHandle unreflectField(Field field, boolean mutator) {
+        try {
+            field.setAccessible(true);
+
+            return mutator ? MethodHandles.lookup().unreflectSetter(field).asType(MUTATOR_TYPE)
+                    : MethodHandles.lookup().unreflectGetter(field).asType(ACCESSOR_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isId(AccessibleObject member) {
+        return member.isAnnotationPresent(Id.class) || member.isAnnotationPresent(EmbeddedId.class);
+    }
+
+    private static MethodHandle findGetter(Class<?> entityClass, Field field) {
+        var suffix = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+
+        for (var prefix : new String[]{"get", "is"}) {
+            try {
+                var getter = entityClass.getMethod(prefix + suffix);
+
+                if (getter.getReturnType().equals(field.getType()) && !Modifier.isStatic(getter.getModifiers())) {
+                    return unreflect(getter);
+                }
+            } catch (NoSuchMethodException e) {
+                //try the next prefix, then the field itself
+            }
+        }
+
+        try {
+            field.setAccessible(true);
+
+            return MethodHandles.lookup().unreflectGetter(field).asType(ACCESSOR_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new UnknownIdException("Error during the determining of the ID property");
+        }
+    }
+
+    private static MethodHandle unreflect(Method getter) {
+        try {
+            getter.setAccessible(true);
+
+            return MethodHandles.lookup().unreflect(getter).asType(ACCESSOR_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new UnknownIdException("Error during the determining of the ID property");
+        }
+    }
+}
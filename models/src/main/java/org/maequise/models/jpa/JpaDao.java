@@ -4,33 +4,93 @@ import org.maequise.commons.exceptions.DeleteException;
 import org.maequise.commons.exceptions.InsertException;
 import org.maequise.commons.exceptions.UpdateException;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
-public interface JpaDao<ID, TYPE> {
+public interface JpaDao<ID, TYPE> extends ReadOnlyDao<ID, TYPE> {
     TYPE insert(TYPE entity) throws InsertException;
 
-    TYPE update(TYPE entity) throws UpdateException;
+    /**
+     * <p>Persist all the entities using JDBC batching, the persistence context is flushed every
+     * {@code datasource.batch-size} entities, then the entities of the batch are detached. The other entities
+     * managed by the transaction of the caller stay managed</p>
+     *
+     * @return the number of entities written by each batch, in order
+     */
+    List<Integer> insertAll(Collection<TYPE> entities) throws InsertException;
 
-    boolean delete(TYPE entity) throws DeleteException;
+    /**
+     * <p>Same as {@link #insertAll(Collection)} but consumes the stream lazily, so the source is never fully materialized</p>
+     */
+    List<Integer> insertAll(Stream<TYPE> entities) throws InsertException;
 
-    TYPE findById(ID id);
+    TYPE update(TYPE entity) throws UpdateException;
 
-    TYPE fetchByQuery(String jpql);
+    /**
+     * <p>Write the detached entities with batched UPDATE statements, without selecting them first.
+     * The persistence context is flushed every {@code datasource.batch-size} entities, then the entities of the batch are detached</p>
+     * <p>A versioned entity is only updated if its version still matches the row, the version of the instance is then incremented</p>
+     *
+     * @return the number of updated entities
+     * @throws UpdateException if an entity has no ID, or on an optimistic locking conflict
+     */
+    int updateAll(Collection<TYPE> entities) throws UpdateException;
 
-    List<TYPE> fetchListByQuery(String jpql);
+    /**
+     * <p>Update only the given attributes of the entity with the ID, in a single UPDATE statement without loading it.
+     * The version of a versioned entity is incremented</p>
+     *
+     * @param fields new values by attribute name, neither the ID nor the version can be updated
+     * @return {@code false} if no entity has the ID
+     */
+    boolean updateFields(ID id, Map<String, Object> fields) throws UpdateException;
 
-    TYPE fetchByQueryWithParams(String jpql, Object... params);
+    /**
+     * <p>Same as {@link #updateFields(Object, Map)} but only if the entity still has the expected version</p>
+     *
+     * @throws UpdateException if the entity was updated or deleted since the expected version was read
+     */
+    boolean updateFields(ID id, Object expectedVersion, Map<String, Object> fields) throws UpdateException;
 
-    TYPE fetchByQueryWithPositionalParams(String jpql, Object...param);
+    boolean delete(TYPE entity) throws DeleteException;
 
-    TYPE fetchByQueryWithNamedParams(String jpql, Map<String, Object> params);
+    /**
+     * <p>Delete the entity with a single DELETE statement, without loading it.
+     * As any bulk statement it skips the cascades and the lifecycle callbacks</p>
+     *
+     * @return {@code false} if no entity has this ID
+     */
+    boolean deleteById(ID id) throws DeleteException;
 
-    List<TYPE> fetchListByQueryWithParams(String jpql, Object... params);
+    /**
+     * <p>Same as {@link #deleteById(Object)} for several entities, with one {@code IN} statement per chunk of
+     * {@code datasource.max-in-parameters} IDs</p>
+     *
+     * @return the number of deleted entities
+     */
+    int deleteAllById(Collection<ID> ids) throws DeleteException;
 
-    List<TYPE> fetchListByQueryWithPositionalParams(String jpql, Object... params);
+    /**
+     * <p>Delete in a single statement all the entities, to keep for small tables</p>
+     */
+    int deleteAll();
 
-    List<TYPE> fetchListByQueryWithNamedParams(String jpql, Map<String, Object> params);
+    /**
+     * <p>Delete the entities by ranges of ids, each chunk in its own transaction, so the locks and
+     * the undo logs stay bounded on large tables</p>
+     *
+     * @return the total of deleted rows
+     * @throws DeleteException if a chunk fails, the previous chunks stay committed
+     */
+    long deleteAllInChunks(PurgeOptions options) throws DeleteException;
 
-    int deleteAll();
+    /**
+     * <p>View of the queries of the DAO for large read-only listings, each call runs in a read-only transaction
+     * (routed to a replica when configured) and the loaded entities are read-only, without snapshot for the dirty checking.
+     * The queries never trigger an auto-flush of the persistence context</p>
+     * <p>Joined to a read-write transaction, the call keeps its read-only entities and flush mode until it returns</p>
+     */
+    ReadOnlyDao<ID, TYPE> readOnly();
 }
@@ -0,0 +1,27 @@
+package org.maequise.models.jpa;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Page of a keyset (seek) pagination</p>
+ *
+ * @param content    the entities of the page, ordered by the sort key
+ * @param nextCursor position of the last entity of the page, to give back to fetch the next page: its ID when the page
+ *                   is sorted on the ID, else a {@link Cursor}, {@code null} when there is no next page
+ * @param hasNext    {@code true} if at least one entity remains after this page
+ */
+public record KeysetPage<TYPE>(List<TYPE> content, Object nextCursor, boolean hasNext) {
+    /**
+     * <p>Position in a page sorted on an attribute other than the ID, the ID orders the entities sharing the same key</p>
+     *
+     * @param key value of the sort attribute of the last entity
+     * @param id  ID of the last entity
+     */
+    public record Cursor(Object key, Object id) {
+    }
+
+    public static <TYPE> KeysetPage<TYPE> empty() {
+        return new KeysetPage<>(Collections.emptyList(), null, false);
+    }
+}
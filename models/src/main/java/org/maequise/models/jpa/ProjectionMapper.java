@@ -0,0 +1,225 @@
+package org.maequise.models.jpa;
+
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * <p>Mapping of the rows of a {@link Tuple} query to a projection type, resolved once by reflection then cached per type</p>
+ * <p>The components of a record are matched with the aliases of the selection, or by position when not aliased.
+ * The getters of an interface are matched with the aliases only, its instances are proxies backed by the values of the row.
+ * The selected values must already have the types of the projection</p>
+ */
+public final class ProjectionMapper<R> {
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private static final ClassValue<ProjectionMapper<?>> CACHE = new ClassValue<>() {
+        @Override
+        protected ProjectionMapper<?> computeValue(Class<?> type) {
+            return new ProjectionMapper<>(type);
+        }
+    };
+
+    private final Class<R> type;
+
+    private final List<String> properties;
+
+    private final MethodHandle constructor;
+
+    private final Map<Method, Integer> getters;
+
+    private ProjectionMapper(Class<R> type) {
+        this.type = type;
+
+        if (type.isRecord()) {
+            var components = type.getRecordComponents();
+
+            this.properties = Arrays.stream(components).map(RecordComponent::getName).toList();
+            this.constructor = canonicalConstructor(type, components);
+            this.getters = Map.of();
+        } else if (type.isInterface()) {
+            var properties = new ArrayList<String>();
+            var getters = new HashMap<Method, Integer>();
+
+            for (var method : type.getMethods()) {
+                if (Modifier.isAbstract(method.getModifiers()) && method.getParameterCount() == 0
+                        && method.getReturnType() != void.class) {
+                    getters.put(method, properties.size());
+                    properties.add(propertyName(method));
+                }
+            }
+
+            this.properties = List.copyOf(properties);
+            this.constructor = null;
+            this.getters = Map.copyOf(getters);
+        } else {
+            throw new IllegalArgumentException("The projection " + type.getName() + " must be a record or an interface");
+        }
+    }
+
+    /**
+     * @param type record or interface of the projection
+     * @return the mapper of the type, computed on the first call only
+     * @throws IllegalArgumentException if the type is neither a record nor an interface
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> ProjectionMapper<R> of(Class<R> type) {
+        return (ProjectionMapper<R>) CACHE.get(type);
+    }
+
+    /**
+     * <p>The returned function resolves the position of each property on the first row, then reuses it,
+     * so it must only map the rows of a single query</p>
+     */
+    public Function<Tuple, R> rowMapper() {
+        return new Function<>() {
+            private int[] indexes;
+
+            @Override
+            public R apply(Tuple tuple) {
+                if (indexes == null) {
+                    indexes = resolveIndexes(tuple.getElements());
+                }
+
+                var values = new Object[indexes.length];
+
+                for (var i = 0; i < indexes.length; i++) {
+                    values[i] = tuple.get(indexes[i]);
+                }
+
+                return instantiate(values);
+            }
+        };
+    }
+
+    private int[] resolveIndexes(List<TupleElement<?>> elements) {
+        var aliases = elements.stream().map(TupleElement::getAlias).toList();
+        var indexes = new int[properties.size()];
+
+        for (var i = 0; i < indexes.length; i++) {
+            var property = properties.get(i);
+            var index = aliases.indexOf(property);
+
+            if (index < 0 && constructor != null && i < elements.size()) {
+                index = i;
+            }
+
+            if (index < 0) {
+                throw new IllegalArgumentException("No value selected for the property " + property
+                        + " of the projection " + type.getName());
+            }
+
+            indexes[i] = index;
+        }
+
+        return indexes;
+    }
+
+    private R instantiate(Object[] values) {
+        if (constructor == null) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new ProjectionHandler(values)));
+        }
+
+        try {
+            return type.cast(constructor.invokeExact(values));
+        } catch (ClassCastException | NullPointerException e) {
+            throw new IllegalArgumentException("The selected values " + Arrays.toString(values)
+                    + " don't match the projection " + type.getName(), e);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Error during the creation of the projection " + type.getName(), e);
+        }
+    }
+
+    private static MethodHandle canonicalConstructor(Class<?> type, RecordComponent[] components) {
+        try {
+            var parameters = Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new);
+            var canonical = type.getDeclaredConstructor(parameters);
+
+            canonical.setAccessible(true);
+
+            return MethodHandles.lookup().unreflectConstructor(canonical)
+                    .asSpreader(Object[].class, components.length)
+                    .asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException("The projection " + type.getName() + " can't be instantiated", e);
+        }
+    }
+
+    private static String propertyName(Method getter) {
+        var name = getter.getName();
+
+        if (name.length() > 3 && name.startsWith("get")) {
+            return Introspector.decapitalize(name.substring(3));
+        }
+
+        if (name.length() > 2 && name.startsWith("is") && getter.getReturnType() == boolean.class) {
+            return Introspector.decapitalize(name.substring(2));
+        }
+
+        //record style accessor
+        return name;
+    }
+
+    /**
+     * <p>Backs an interface projection with the values of the row, without any reference to the persistence context</p>
+     */
+    private final class ProjectionHandler implements InvocationHandler {
+        private final Object[] values;
+
+        private ProjectionHandler(Object[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var index = getters.get(method);
+
+            if (index != null) {
+                return values[index];
+            }
+
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0] || args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                        && Proxy.getInvocationHandler(args[0]) instanceof ProjectionMapper<?>.ProjectionHandler other
+                        && other.mapper() == ProjectionMapper.this && Arrays.equals(values, other.values);
+                case "hashCode" -> Arrays.hashCode(values);
+                case "toString" -> describe();
+                default -> throw new UnsupportedOperationException("The projection doesn't support " + method);
+            };
+        }
+
+        private ProjectionMapper<R> mapper() {
+            return ProjectionMapper.this;
+        }
+
+        private String describe() {
+            var joiner = new StringJoiner(", ", type.getSimpleName() + "[", "]");
+
+            for (var i = 0; i < values.length; i++) {
+                joiner.add(properties.get(i) + "=" + values[i]);
+            }
+
+            return joiner.toString();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.maequise.models.jpa;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>Options of a chunked delete, see {@link JpaDao#deleteAllInChunks(PurgeOptions)}</p>
+ */
+@Getter
+@Builder
+public class PurgeOptions {
+    /**
+     * <p>Maximum number of rows deleted by each transaction</p>
+     */
+    @Builder.Default
+    private int chunkSize = 1_000;
+
+    /**
+     * <p>Optional JPQL condition on the alias {@code e} restricting the deleted rows, e.g. {@code e.email is null}</p>
+     */
+    private String predicate;
+
+    /**
+     * <p>Named parameters of the predicate</p>
+     */
+    @Builder.Default
+    private Map<String, Object> params = Collections.emptyMap();
+
+    /**
+     * <p>Notified after each chunk with the total of rows deleted so far</p>
+     */
+    @Builder.Default
+    private LongConsumer progressListener = deleted -> {
+    };
+
+    /**
+     * <p>Checked before each chunk, the purge stops as soon as it returns {@code true},
+     * the chunks already deleted stay committed</p>
+     */
+    @Builder.Default
+    private BooleanSupplier cancellation = () -> false;
+}
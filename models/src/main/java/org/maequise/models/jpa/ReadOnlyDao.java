@@ -0,0 +1,159 @@
+package org.maequise.models.jpa;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * <p>Queries of a DAO, without any write operation</p>
+ *
+ * @see JpaDao#readOnly()
+ */
+public interface ReadOnlyDao<ID, TYPE> {
+    TYPE findById(ID id);
+
+    /**
+     * <p>Load several entities at once: the ones already managed by the persistence context or held by the
+     * second-level cache are reused, the others are selected with one {@code IN} query per chunk of
+     * {@code datasource.max-in-parameters} IDs</p>
+     *
+     * @param ids IDs of the entities, none can be {@code null}
+     * @return the entities in the order of the IDs, {@code null} in place of a missing entity
+     */
+    List<TYPE> findAllById(Collection<ID> ids);
+
+    /**
+     * <p>Check the ID with a {@code SELECT 1 ... FETCH FIRST 1 ROWS ONLY} query, the entity is never loaded</p>
+     */
+    boolean existsById(ID id);
+
+    /**
+     * <p>Same as {@link #existsById(Object)} for the entities matching the predicate</p>
+     *
+     * @param predicate JPQL condition on the entity aliased {@code e}, as {@code e.username = ?1}
+     * @param params    positional parameters, or a single {@code Map} of named parameters
+     */
+    boolean exists(String predicate, Object... params);
+
+    /**
+     * <p>Count the entities with a {@code COUNT(*)} query, without loading them</p>
+     */
+    long count();
+
+    /**
+     * @param predicate JPQL condition on the entity aliased {@code e}, as {@code e.username = ?1}
+     * @param params    positional parameters, or a single {@code Map} of named parameters
+     * @return the number of entities matching the predicate
+     */
+    long count(String predicate, Object... params);
+
+    TYPE fetchByQuery(String jpql);
+
+    List<TYPE> fetchListByQuery(String jpql);
+
+    TYPE fetchByQueryWithParams(String jpql, Object... params);
+
+    TYPE fetchByQueryWithPositionalParams(String jpql, Object...param);
+
+    TYPE fetchByQueryWithNamedParams(String jpql, Map<String, Object> params);
+
+    /**
+     * <p>Fetch the single entity matching the query, a miss is an empty result rather than an exception,
+     * so it costs nothing more than the query for the lookups often missing, as a username check</p>
+     *
+     * @param params positional parameters, or a single {@code Map} of named parameters
+     * @throws org.springframework.dao.IncorrectResultSizeDataAccessException if more than 1 entity matches,
+     *                                                                      detected by reading at most 2 rows
+     */
+    Optional<TYPE> fetchOptional(String jpql, Object... params);
+
+    /**
+     * <p>Same as {@link #fetchOptional(String, Object...)} for a query template of the DAO</p>
+     */
+    Optional<TYPE> fetchOptionalByNamedQuery(String name, Object... params);
+
+    List<TYPE> fetchListByQueryWithParams(String jpql, Object... params);
+
+    List<TYPE> fetchListByQueryWithPositionalParams(String jpql, Object... params);
+
+    List<TYPE> fetchListByQueryWithNamedParams(String jpql, Map<String, Object> params);
+
+    /**
+     * <p>Fetch the first results of the query, the limit is applied by the database</p>
+     *
+     * @param maxResults maximum number of entities returned, positive
+     * @param params     positional parameters, or a single {@code Map} of named parameters
+     */
+    List<TYPE> fetchFirstByQuery(String jpql, int maxResults, Object... params);
+
+    /**
+     * <p>Execute a query template of the DAO, declared with {@code AbstractJpa#queryTemplates()}</p>
+     *
+     * @param name   name of the template
+     * @param params positional parameters, or a single {@code Map} of named parameters
+     */
+    TYPE fetchByNamedQuery(String name, Object... params);
+
+    List<TYPE> fetchListByNamedQuery(String name, Object... params);
+
+    /**
+     * <p>Stream the results of the query through a server side cursor, the rows are detached while consumed
+     * so the memory stays flat whatever the size of the result</p>
+     * <p>Must be called inside a transaction, and the stream must be closed (try-with-resources) to release the cursor</p>
+     */
+    Stream<TYPE> fetchStreamByQuery(String jpql);
+
+    Stream<TYPE> fetchStreamByQueryWithPositionalParams(String jpql, Object... params);
+
+    Stream<TYPE> fetchStreamByQueryWithNamedParams(String jpql, Map<String, Object> params);
+
+    /**
+     * <p>Execute a query selecting only some attributes, the row is mapped to the projection instead of a managed entity,
+     * so nothing is registered in the persistence context nor kept for the dirty checking</p>
+     *
+     * @param projection a record, its components matched with the aliases of the selection or else by position,
+     *                   or an interface, its getters matched with the aliases ({@code select e.username as username ...})
+     * @param params     positional parameters, or a single {@code Map} of named parameters
+     * @see ProjectionMapper
+     */
+    <R> R fetchProjection(String jpql, Class<R> projection, Object... params);
+
+    /**
+     * <p>Same as {@link #fetchProjection(String, Class, Object...)}, a miss is an empty result</p>
+     *
+     * @throws org.springframework.dao.IncorrectResultSizeDataAccessException if more than 1 row matches
+     */
+    <R> Optional<R> fetchProjectionOptional(String jpql, Class<R> projection, Object... params);
+
+    <R> List<R> fetchProjectionList(String jpql, Class<R> projection, Object... params);
+
+    /**
+     * <p>Same as {@link #fetchProjectionList(String, Class, Object...)} through a server side cursor</p>
+     * <p>Must be called inside a transaction, and the stream must be closed (try-with-resources) to release the cursor</p>
+     */
+    <R> Stream<R> fetchProjectionStream(String jpql, Class<R> projection, Object... params);
+
+    /**
+     * <p>Keyset pagination sorted on the {@code @Id}</p>
+     *
+     * @see #fetchPage(String, Object, int)
+     */
+    KeysetPage<TYPE> fetchPage(Object lastSeen, int pageSize);
+
+    /**
+     * <p>Fetch the page following {@code lastSeen} with a {@code WHERE key > :lastSeen ORDER BY key} query,
+     * the cost stays the same whatever the depth of the page, contrary to an {@code OFFSET}</p>
+     * <p>Unless the key is the ID, the ID is appended to the ordering so the entities sharing the same key
+     * are not skipped at the boundary of a page, and the cursor is a {@link KeysetPage.Cursor}</p>
+     *
+     * @param sortAttribute attribute of the entity used as key, its values must not be null
+     * @param lastSeen      the {@link KeysetPage#nextCursor()} of the previous page, {@code null} for the first page
+     * @param pageSize      maximum number of entities of the page
+     * @throws IllegalArgumentException if the cursor doesn't match the sort, a {@link KeysetPage.Cursor}
+     *                                  only for a key other than the ID
+     * @throws org.springframework.dao.DataAccessException if the query fails, never reported as an empty page
+     */
+    KeysetPage<TYPE> fetchPage(String sortAttribute, Object lastSeen, int pageSize);
+}
@@ -0,0 +1,244 @@
+package org.maequise.models.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * <p>Read-only view of a DAO, see {@link JpaDao#readOnly()}</p>
+ * <p>While a call runs, the session loads the entities read-only and its flush mode is lowered to {@code COMMIT},
+ * the previous settings are restored at the end of the call, or when the stream of a streaming query is closed,
+ * at the latest when the transaction completes if the stream is never closed</p>
+ */
+final class ReadOnlyJpaDao<ID, TYPE> implements ReadOnlyDao<ID, TYPE> {
+    private final ReadOnlyDao<ID, TYPE> delegate;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transaction;
+
+    ReadOnlyJpaDao(ReadOnlyDao<ID, TYPE> delegate, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.delegate = delegate;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+    }
+
+    @Override
+    public TYPE findById(ID id) {
+        return execute(() -> delegate.findById(id));
+    }
+
+    @Override
+    public List<TYPE> findAllById(Collection<ID> ids) {
+        return execute(() -> delegate.findAllById(ids));
+    }
+
+    @Override
+    public boolean existsById(ID id) {
+        return execute(() -> delegate.existsById(id));
+    }
+
+    @Override
+    public boolean exists(String predicate, Object... params) {
+        return execute(() -> delegate.exists(predicate, params));
+    }
+
+    @Override
+    public long count() {
+        return execute(delegate::count);
+    }
+
+    @Override
+    public long count(String predicate, Object... params) {
+        return execute(() -> delegate.count(predicate, params));
+    }
+
+    @Override
+    public TYPE fetchByQuery(String jpql) {
+        return execute(() -> delegate.fetchByQuery(jpql));
+    }
+
+    @Override
+    public List<TYPE> fetchListByQuery(String jpql) {
+        return execute(() -> delegate.fetchListByQuery(jpql));
+    }
+
+    @Override
+    public TYPE fetchByQueryWithParams(String jpql, Object... params) {
+        return execute(() -> delegate.fetchByQueryWithParams(jpql, params));
+    }
+
+    @Override
+    public TYPE fetchByQueryWithPositionalParams(String jpql, Object... params) {
+        return execute(() -> delegate.fetchByQueryWithPositionalParams(jpql, params));
+    }
+
+    @Override
+    public TYPE fetchByQueryWithNamedParams(String jpql, Map<String, Object> params) {
+        return execute(() -> delegate.fetchByQueryWithNamedParams(jpql, params));
+    }
+
+    @Override
+    public Optional<TYPE> fetchOptional(String jpql, Object... params) {
+        return execute(() -> delegate.fetchOptional(jpql, params));
+    }
+
+    @Override
+    public Optional<TYPE> fetchOptionalByNamedQuery(String name, Object... params) {
+        return execute(() -> delegate.fetchOptionalByNamedQuery(name, params));
+    }
+
+    @Override
+    public List<TYPE> fetchListByQueryWithParams(String jpql, Object... params) {
+        return execute(() -> delegate.fetchListByQueryWithParams(jpql, params));
+    }
+
+    @Override
+    public List<TYPE> fetchListByQueryWithPositionalParams(String jpql, Object... params) {
+        return execute(() -> delegate.fetchListByQueryWithPositionalParams(jpql, params));
+    }
+
+    @Override
+    public List<TYPE> fetchListByQueryWithNamedParams(String jpql, Map<String, Object> params) {
+        return execute(() -> delegate.fetchListByQueryWithNamedParams(jpql, params));
+    }
+
+    @Override
+    public List<TYPE> fetchFirstByQuery(String jpql, int maxResults, Object... params) {
+        return execute(() -> delegate.fetchFirstByQuery(jpql, maxResults, params));
+    }
+
+    @Override
+    public TYPE fetchByNamedQuery(String name, Object... params) {
+        return execute(() -> delegate.fetchByNamedQuery(name, params));
+    }
+
+    @Override
+    public List<TYPE> fetchListByNamedQuery(String name, Object... params) {
+        return execute(() -> delegate.fetchListByNamedQuery(name, params));
+    }
+
+    @Override
+    public Stream<TYPE> fetchStreamByQuery(String jpql) {
+        return stream(() -> delegate.fetchStreamByQuery(jpql));
+    }
+
+    @Override
+    public Stream<TYPE> fetchStreamByQueryWithPositionalParams(String jpql, Object... params) {
+        return stream(() -> delegate.fetchStreamByQueryWithPositionalParams(jpql, params));
+    }
+
+    @Override
+    public Stream<TYPE> fetchStreamByQueryWithNamedParams(String jpql, Map<String, Object> params) {
+        return stream(() -> delegate.fetchStreamByQueryWithNamedParams(jpql, params));
+    }
+
+    @Override
+    public <R> R fetchProjection(String jpql, Class<R> projection, Object... params) {
+        return execute(() -> delegate.fetchProjection(jpql, projection, params));
+    }
+
+    @Override
+    public <R> Optional<R> fetchProjectionOptional(String jpql, Class<R> projection, Object... params) {
+        return execute(() -> delegate.fetchProjectionOptional(jpql, projection, params));
+    }
+
+    @Override
+    public <R> List<R> fetchProjectionList(String jpql, Class<R> projection, Object... params) {
+        return execute(() -> delegate.fetchProjectionList(jpql, projection, params));
+    }
+
+    @Override
+    public <R> Stream<R> fetchProjectionStream(String jpql, Class<R> projection, Object... params) {
+        return stream(() -> delegate.fetchProjectionStream(jpql, projection, params));
+    }
+
+    @Override
+    public KeysetPage<TYPE> fetchPage(Object lastSeen, int pageSize) {
+        return execute(() -> delegate.fetchPage(lastSeen, pageSize));
+    }
+
+    @Override
+    public KeysetPage<TYPE> fetchPage(String sortAttribute, Object lastSeen, int pageSize) {
+        return execute(() -> delegate.fetchPage(sortAttribute, lastSeen, pageSize));
+    }
+
+    private <R> R execute(Supplier<R> query) {
+        return transaction.execute(status -> {
+            var restore = readOnlySession();
+
+            try {
+                return query.get();
+            } finally {
+                restore.run();
+            }
+        });
+    }
+
+    /**
+     * <p>The cursor must outlive the call, so the streaming queries join the transaction of the caller</p>
+     */
+    private <R> Stream<R> stream(Supplier<Stream<R>> query) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalTransactionStateException("The streaming queries must be called inside a transaction");
+        }
+
+        var restore = readOnlySession();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    restore.run();
+                }
+            });
+        }
+
+        try {
+            return query.get().onClose(restore);
+        } catch (RuntimeException e) {
+            restore.run();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the restoring of the previous settings of the session, only applied by its first run
+     */
+    private Runnable readOnlySession() {
+        var session = entityManager.unwrap(Session.class);
+        var defaultReadOnly = session.isDefaultReadOnly();
+        var flushMode = session.getHibernateFlushMode();
+
+        session.setDefaultReadOnly(true);
+
+        //spring already sets the manual flush mode on the read-only transactions it begins, which is stricter
+        if (flushMode != FlushMode.MANUAL) {
+            session.setFlushMode(FlushModeType.COMMIT);
+        }
+
+        var restored = new AtomicBoolean();
+
+        return () -> {
+            if (restored.compareAndSet(false, true) && session.isOpen()) {
+                session.setDefaultReadOnly(defaultReadOnly);
+                session.setHibernateFlushMode(flushMode);
+            }
+        };
+    }
+}
@@ -0,0 +1,167 @@
+package org.maequise.models.jpa.async;
+
+import org.maequise.models.jpa.JpaDao;
+import org.maequise.models.jpa.KeysetPage;
+import org.maequise.models.jpa.PurgeOptions;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>Non-blocking facade of a {@link JpaDao}, each call runs in its own transaction on the {@link DaoExecutor}</p>
+ * <p>The streaming queries are not exposed, their cursor can't outlive the transaction of the call,
+ * nor the insertion of a stream, which would be consumed on another thread than the one producing it</p>
+ */
+public abstract class AsyncJpaDao<ID, TYPE> {
+    private final JpaDao<ID, TYPE> delegate;
+
+    private final DaoExecutor executor;
+
+    protected AsyncJpaDao(JpaDao<ID, TYPE> delegate, DaoExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<TYPE> insert(TYPE entity) {
+        return executor.submit(() -> delegate.insert(entity));
+    }
+
+    public CompletableFuture<List<Integer>> insertAll(Collection<TYPE> entities) {
+        return executor.submit(() -> delegate.insertAll(entities));
+    }
+
+    public CompletableFuture<TYPE> update(TYPE entity) {
+        return executor.submit(() -> delegate.update(entity));
+    }
+
+    public CompletableFuture<Integer> updateAll(Collection<TYPE> entities) {
+        return executor.submit(() -> delegate.updateAll(entities));
+    }
+
+    public CompletableFuture<Boolean> updateFields(ID id, Map<String, Object> fields) {
+        return executor.submit(() -> delegate.updateFields(id, fields));
+    }
+
+    public CompletableFuture<Boolean> updateFields(ID id, Object expectedVersion, Map<String, Object> fields) {
+        return executor.submit(() -> delegate.updateFields(id, expectedVersion, fields));
+    }
+
+    public CompletableFuture<Boolean> delete(TYPE entity) {
+        return executor.submit(() -> delegate.delete(entity));
+    }
+
+    public CompletableFuture<Boolean> deleteById(ID id) {
+        return executor.submit(() -> delegate.deleteById(id));
+    }
+
+    public CompletableFuture<Integer> deleteAllById(Collection<ID> ids) {
+        return executor.submit(() -> delegate.deleteAllById(ids));
+    }
+
+    public CompletableFuture<TYPE> findById(ID id) {
+        return executor.submit(() -> delegate.findById(id));
+    }
+
+    public CompletableFuture<List<TYPE>> findAllById(Collection<ID> ids) {
+        return executor.submit(() -> delegate.findAllById(ids));
+    }
+
+    public CompletableFuture<Boolean> existsById(ID id) {
+        return executor.submit(() -> delegate.existsById(id));
+    }
+
+    public CompletableFuture<Boolean> exists(String predicate, Object... params) {
+        return executor.submit(() -> delegate.exists(predicate, params));
+    }
+
+    public CompletableFuture<Long> count() {
+        return executor.submit(delegate::count);
+    }
+
+    public CompletableFuture<Long> count(String predicate, Object... params) {
+        return executor.submit(() -> delegate.count(predicate, params));
+    }
+
+    public CompletableFuture<TYPE> fetchByQuery(String jpql) {
+        return executor.submit(() -> delegate.fetchByQuery(jpql));
+    }
+
+    public CompletableFuture<List<TYPE>> fetchListByQuery(String jpql) {
+        return executor.submit(() -> delegate.fetchListByQuery(jpql));
+    }
+
+    public CompletableFuture<TYPE> fetchByQueryWithParams(String jpql, Object... params) {
+        return executor.submit(() -> delegate.fetchByQueryWithParams(jpql, params));
+    }
+
+    public CompletableFuture<TYPE> fetchByQueryWithPositionalParams(String jpql, Object... params) {
+        return executor.submit(() -> delegate.fetchByQueryWithPositionalParams(jpql, params));
+    }
+
+    public CompletableFuture<TYPE> fetchByQueryWithNamedParams(String jpql, Map<String, Object> params) {
+        return executor.submit(() -> delegate.fetchByQueryWithNamedParams(jpql, params));
+    }
+
+    public CompletableFuture<List<TYPE>> fetchListByQueryWithParams(String jpql, Object... params) {
+        return executor.submit(() -> delegate.fetchListByQueryWithParams(jpql, params));
+    }
+
+    public CompletableFuture<List<TYPE>> fetchListByQueryWithPositionalParams(String jpql, Object... params) {
+        return executor.submit(() -> delegate.fetchListByQueryWithPositionalParams(jpql, params));
+    }
+
+    public CompletableFuture<List<TYPE>> fetchListByQueryWithNamedParams(String jpql, Map<String, Object> params) {
+        return executor.submit(() -> delegate.fetchListByQueryWithNamedParams(jpql, params));
+    }
+
+    public CompletableFuture<List<TYPE>> fetchFirstByQuery(String jpql, int maxResults, Object... params) {
+        return executor.submit(() -> delegate.fetchFirstByQuery(jpql, maxResults, params));
+    }
+
+    public CompletableFuture<Optional<TYPE>> fetchOptional(String jpql, Object... params) {
+        return executor.submit(() -> delegate.fetchOptional(jpql, params));
+    }
+
+    public CompletableFuture<Optional<TYPE>> fetchOptionalByNamedQuery(String name, Object... params) {
+        return executor.submit(() -> delegate.fetchOptionalByNamedQuery(name, params));
+    }
+
+    public CompletableFuture<TYPE> fetchByNamedQuery(String name, Object... params) {
+        return executor.submit(() -> delegate.fetchByNamedQuery(name, params));
+    }
+
+    public CompletableFuture<List<TYPE>> fetchListByNamedQuery(String name, Object... params) {
+        return executor.submit(() -> delegate.fetchListByNamedQuery(name, params));
+    }
+
+    public <R> CompletableFuture<R> fetchProjection(String jpql, Class<R> projection, Object... params) {
+        return executor.submit(() -> delegate.fetchProjection(jpql, projection, params));
+    }
+
+    public <R> CompletableFuture<Optional<R>> fetchProjectionOptional(String jpql, Class<R> projection, Object... params) {
+        return executor.submit(() -> delegate.fetchProjectionOptional(jpql, projection, params));
+    }
+
+    public <R> CompletableFuture<List<R>> fetchProjectionList(String jpql, Class<R> projection, Object... params) {
+        return executor.submit(() -> delegate.fetchProjectionList(jpql, projection, params));
+    }
+
+    public CompletableFuture<KeysetPage<TYPE>> fetchPage(Object lastSeen, int pageSize) {
+        return executor.submit(() -> delegate.fetchPage(lastSeen, pageSize));
+    }
+
+    public CompletableFuture<KeysetPage<TYPE>> fetchPage(String sortAttribute, Object lastSeen, int pageSize) {
+        return executor.submit(() -> delegate.fetchPage(sortAttribute, lastSeen, pageSize));
+    }
+
+    public CompletableFuture<Integer> deleteAll() {
+        return executor.submit(delegate::deleteAll);
+    }
+
+    public CompletableFuture<Long> deleteAllInChunks(PurgeOptions options) {
+        return executor.submit(() -> delegate.deleteAllInChunks(options));
+    }
+}
@@ -0,0 +1,115 @@
+package org.maequise.models.jpa.async;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.maequise.models.config.ConnectionPools;
+import org.maequise.models.config.TenantIdentifierResolver;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.*;
+
+/**
+ * <p>Run the DAO calls of the async facades, each one on its own virtual thread</p>
+ * <p>The number of calls running at the same time is limited to the connections of all the pools behind the data source,
+ * the primary one and its replicas or shards, the other calls wait on a virtual thread without holding a connection.
+ * A call submitted by a running call, e.g. a scatter over the shards, runs inline on the thread of the running call,
+ * waiting for a permit held by its caller would deadlock once the permits are exhausted</p>
+ * <p>A call runs for the tenant of the thread submitting it, see {@link TenantIdentifierResolver}</p>
+ */
+@Component
+@Slf4j
+public class DaoExecutor implements DisposableBean {
+    /**
+     * <p>Default size of a Hikari pool</p>
+     */
+    private static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Semaphore permits;
+
+    private final int maxConcurrency;
+
+    /**
+     * <p>Set on the threads running a call</p>
+     */
+    private final ThreadLocal<Boolean> running = new ThreadLocal<>();
+
+    /**
+     * @param maxConcurrency explicit limit of concurrent calls, {@code 0} to use the maximum sizes of the Hikari pools
+     */
+    @Autowired
+    public DaoExecutor(DataSource dataSource, @Value("${datasource.async.max-concurrency:0}") int maxConcurrency) {
+        this(maxConcurrency > 0 ? maxConcurrency : poolsSize(dataSource));
+    }
+
+    DaoExecutor(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return a future completed with the result of the call, or exceptionally with a {@link CompletionException}
+     * wrapping the error thrown by the call
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        if (running.get() != null) {
+            try {
+                return CompletableFuture.completedFuture(call.call());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(new CompletionException(e));
+            }
+        }
+
+        var tenant = TenantIdentifierResolver.currentTenant();
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+
+            running.set(Boolean.TRUE);
+            try {
+                return TenantIdentifierResolver.onTenant(tenant, call::call);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                running.remove();
+                permits.release();
+            }
+        }, executor);
+    }
+
+    private static int poolsSize(DataSource dataSource) {
+        try {
+            return ConnectionPools.of(dataSource).stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum();
+        } catch (SQLException e) {
+            log.warn("No Hikari pool behind the data source, the DAO calls are limited to {} at the same time",
+                    DEFAULT_MAX_CONCURRENCY, e);
+
+            return DEFAULT_MAX_CONCURRENCY;
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.error("DAO calls still running after the shutdown, they are interrupted");
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.maequise.models.jpa.daos;
+
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.async.AsyncJpaDao;
+import org.maequise.models.jpa.async.DaoExecutor;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class AsyncUserDao extends AsyncJpaDao<Integer, UserEntity> {
+    public AsyncUserDao(UserDao userDao, DaoExecutor daoExecutor) {
+        super(userDao, daoExecutor);
+    }
+}
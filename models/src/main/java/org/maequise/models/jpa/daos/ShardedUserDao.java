@@ -0,0 +1,22 @@
+package org.maequise.models.jpa.daos;
+
+import jakarta.persistence.EntityManager;
+import org.maequise.models.config.ShardedDataSource;
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.async.DaoExecutor;
+import org.maequise.models.jpa.sharding.ShardedJpaDao;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Repository
+@ConditionalOnProperty(name = "datasource.shards[0].url")
+public class ShardedUserDao extends ShardedJpaDao<Integer, UserEntity> {
+    public ShardedUserDao(UserDao userDao, DataSource dataSource, EntityManager entityManager,
+                          PlatformTransactionManager transactionManager, DaoExecutor daoExecutor) throws SQLException {
+        super(userDao, dataSource.unwrap(ShardedDataSource.class), entityManager, transactionManager, daoExecutor);
+    }
+}
@@ -1,10 +1,17 @@
 package org.maequise.models.jpa.daos;
 
-import jakarta.persistence.EntityManager;
 import org.maequise.models.entities.UserEntity;
 import org.maequise.models.jpa.AbstractJpa;
 import org.springframework.stereotype.Repository;
 
+import java.util.Map;
+
 @Repository
 public class UserDao extends AbstractJpa<Integer, UserEntity> {
+    public static final String FIND_BY_USERNAME = "findByUsername";
+
+    @Override
+    protected Map<String, String> queryTemplates() {
+        return Map.of(FIND_BY_USERNAME, "select e from UserEntity e where e.username = :username");
+    }
 }
@@ -0,0 +1,21 @@
+package org.maequise.models.jpa.daos;
+
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.writebehind.WriteBehindJpaDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+
+@Repository
+@ConditionalOnProperty(name = "datasource.write-behind.enabled", havingValue = "true")
+public class WriteBehindUserDao extends WriteBehindJpaDao<Integer, UserEntity> {
+    public WriteBehindUserDao(UserDao userDao,
+                              @Value("${datasource.write-behind.batch-size:${datasource.batch-size:50}}") int batchSize,
+                              @Value("${datasource.write-behind.max-pending:10000}") int maxPending,
+                              @Value("${datasource.write-behind.flush-interval:1s}") Duration flushInterval,
+                              @Value("${datasource.write-behind.max-attempts:" + DEFAULT_MAX_ATTEMPTS + "}") int maxAttempts) {
+        super(userDao, batchSize, maxPending, flushInterval, maxAttempts);
+    }
+}
@@ -0,0 +1,377 @@
+package org.maequise.models.jpa.sharding;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.ReplicationMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.maequise.commons.exceptions.DeleteException;
+import org.maequise.commons.exceptions.InsertException;
+import org.maequise.commons.exceptions.UpdateException;
+import org.maequise.models.config.ShardedDataSource;
+import org.maequise.models.jpa.EntityMetadata;
+import org.maequise.models.jpa.JpaDao;
+import org.maequise.models.jpa.async.DaoExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * <p>DAO spreading the entities over the shards of a {@link ShardedDataSource}, the shard of an entity is the hash
+ * of its shard key modulo the number of shards. The key is the ID by default, or extracted from the entity
+ * by the given function, it must never change once the entity is inserted</p>
+ * <p>The IDs are generated by the sequences of the shard {@value ShardedDataSource#DEFAULT_SHARD}, so they are unique
+ * across the shards, then the entity is inserted on its shard. The writes and the lookups by ID are sent to a single
+ * shard, in the transaction of the caller when it is on the same shard, a transaction can't span several shards.
+ * With a key other than the ID, the lookups by ID are sent to every shard</p>
+ * <p>The list queries and the counts are scattered to every shard in parallel on the {@link DaoExecutor},
+ * each shard in its own read-only transaction, then the results are gathered. The {@code ORDER BY} of a query only
+ * orders the results of each shard, so an ordered query requires a {@link Comparator} merging them in its order</p>
+ */
+public abstract class ShardedJpaDao<ID, TYPE> {
+    private static final Pattern ORDER_BY_PATTERN = Pattern.compile("\\border\\s+by\\b", Pattern.CASE_INSENSITIVE);
+
+    private final JpaDao<ID, TYPE> delegate;
+
+    private final int shardCount;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DaoExecutor executor;
+
+    private final Function<TYPE, ?> shardKey;
+
+    protected ShardedJpaDao(JpaDao<ID, TYPE> delegate, ShardedDataSource dataSource, EntityManager entityManager,
+                            PlatformTransactionManager transactionManager, DaoExecutor executor) {
+        this(delegate, dataSource, entityManager, transactionManager, executor, null);
+    }
+
+    /**
+     * @param shardKey extractor of the shard key of an entity, {@code null} to shard by ID
+     */
+    protected ShardedJpaDao(JpaDao<ID, TYPE> delegate, ShardedDataSource dataSource, EntityManager entityManager,
+                            PlatformTransactionManager transactionManager, DaoExecutor executor, Function<TYPE, ?> shardKey) {
+        this.delegate = delegate;
+        this.shardCount = dataSource.shardCount();
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.shardKey = shardKey;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return the shard holding the entity
+     */
+    public int shardOf(TYPE entity) {
+        return shardOfKey(shardKey == null ? idOf(entity) : shardKey.apply(entity));
+    }
+
+    public TYPE insert(TYPE entity) throws InsertException {
+        insertAll(List.of(entity));
+
+        return entity;
+    }
+
+    /**
+     * <p>Generate the missing IDs, then insert the entities of each shard in one transaction per shard</p>
+     *
+     * @return the number of inserted entities
+     */
+    public int insertAll(Collection<TYPE> entities) throws InsertException {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            assignIds(entities);
+
+            var inserted = 0;
+
+            for (var shard : groupByShard(entities).entrySet()) {
+                inserted += onShard(shard.getKey(), () -> transactionTemplate.execute(status -> replicate(shard.getValue())));
+            }
+
+            return inserted;
+        } catch (PersistenceException | DataAccessException e) {
+            throw new InsertException("Error during the insertion on the shards", e);
+        }
+    }
+
+    /**
+     * <p>An entity missing from its shard is inserted with its ID, a merge would generate another one
+     * from the sequence of the shard. The entity is updated without being read first, and inserted once the update
+     * found no row. In the transaction of the caller, a failed statement would roll it back, so the row is looked up
+     * before the update instead</p>
+     */
+    public TYPE update(TYPE entity) throws UpdateException {
+        var id = idOf(entity);
+
+        if (id == null) {
+            return insertMissing(entity, null);
+        }
+
+        var shard = shardOf(entity);
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return onShard(shard, () -> delegate.existsById(id)) ? onShard(shard, () -> delegate.update(entity))
+                    : insertMissing(entity, null);
+        }
+
+        try {
+            onShard(shard, () -> delegate.updateAll(List.of(entity)));
+
+            return entity;
+        } catch (UpdateException e) {
+            //no row updated, the entity is missing or stale
+            if (e.getCause() instanceof OptimisticLockException) {
+                return insertMissing(entity, e);
+            }
+
+            throw e;
+        }
+    }
+
+    public boolean delete(TYPE entity) throws DeleteException {
+        return onShard(shardOf(entity), () -> delegate.delete(entity));
+    }
+
+    public boolean deleteById(ID id) throws DeleteException {
+        if (shardKey == null) {
+            return onShard(shardOfKey(id), () -> delegate.deleteById(id));
+        }
+
+        return scatter(() -> delegate.deleteById(id)).stream().anyMatch(Boolean::booleanValue);
+    }
+
+    public TYPE findById(ID id) {
+        if (shardKey == null) {
+            return onShard(shardOfKey(id), () -> delegate.findById(id));
+        }
+
+        return scatter(() -> delegate.findById(id)).stream()
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * @return the results of every shard, one shard after the other
+     * @throws IllegalArgumentException if the query has an {@code ORDER BY}, its order requires a {@link Comparator}
+     * @see #fetchListByQueryWithParams(String, Comparator, Object...)
+     */
+    public List<TYPE> fetchListByQueryWithParams(String jpql, Object... params) {
+        requireUnordered(jpql);
+
+        return gather(scatter(() -> delegate.fetchListByQueryWithParams(jpql, params)), null);
+    }
+
+    /**
+     * @param order the order of the {@code ORDER BY} of the query, applied to merge the results of the shards
+     */
+    public List<TYPE> fetchListByQueryWithParams(String jpql, Comparator<? super TYPE> order, Object... params) {
+        return gather(scatter(() -> delegate.fetchListByQueryWithParams(jpql, params)), order);
+    }
+
+    /**
+     * @return the results of every shard, one shard after the other
+     * @throws IllegalArgumentException if the query has an {@code ORDER BY}, its order requires a {@link Comparator}
+     */
+    public List<TYPE> fetchListByQueryWithPositionalParams(String jpql, Object... params) {
+        requireUnordered(jpql);
+
+        return gather(scatter(() -> delegate.fetchListByQueryWithPositionalParams(jpql, params)), null);
+    }
+
+    public List<TYPE> fetchListByQueryWithPositionalParams(String jpql, Comparator<? super TYPE> order, Object... params) {
+        return gather(scatter(() -> delegate.fetchListByQueryWithPositionalParams(jpql, params)), order);
+    }
+
+    /**
+     * @return the results of every shard, one shard after the other
+     * @throws IllegalArgumentException if the query has an {@code ORDER BY}, its order requires a {@link Comparator}
+     */
+    public List<TYPE> fetchListByQueryWithNamedParams(String jpql, Map<String, Object> params) {
+        requireUnordered(jpql);
+
+        return gather(scatter(() -> delegate.fetchListByQueryWithNamedParams(jpql, params)), null);
+    }
+
+    public List<TYPE> fetchListByQueryWithNamedParams(String jpql, Comparator<? super TYPE> order, Map<String, Object> params) {
+        return gather(scatter(() -> delegate.fetchListByQueryWithNamedParams(jpql, params)), order);
+    }
+
+    /**
+     * <p>Fetch the first results of the query across the shards: each shard returns its own first {@code maxResults}
+     * results, then they are merged and cut to {@code maxResults}</p>
+     *
+     * @param order the order of the {@code ORDER BY} of the query, applied to merge the results of the shards
+     */
+    public List<TYPE> fetchFirstByQuery(String jpql, Comparator<? super TYPE> order, int maxResults, Object... params) {
+        //each shard returns at most maxResults rows
+        return gather(scatter(() -> delegate.fetchFirstByQuery(jpql, maxResults, params)), order).stream()
+                .limit(maxResults)
+                .toList();
+    }
+
+    public long count() {
+        return scatter(delegate::count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long count(String predicate, Object... params) {
+        return scatter(() -> delegate.count(predicate, params)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    int shardOfKey(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The shard key can't be null");
+        }
+
+        return Math.floorMod(key.hashCode(), shardCount);
+    }
+
+    /**
+     * <p>Gathered shard after shard, the results would silently lose the order of the query</p>
+     */
+    private static void requireUnordered(String jpql) {
+        if (ORDER_BY_PATTERN.matcher(jpql).find()) {
+            throw new IllegalArgumentException("The order of the query can't be merged across the shards without a comparator: " + jpql);
+        }
+    }
+
+    private TYPE insertMissing(TYPE entity, UpdateException updateError) throws UpdateException {
+        try {
+            return insert(entity);
+        } catch (InsertException e) {
+            var error = new UpdateException("Error during the update of the entity", e);
+
+            if (updateError != null) {
+                error.addSuppressed(updateError);
+            }
+
+            throw error;
+        }
+    }
+
+    /**
+     * <p>Sorting the results of all the shards costs less than their queries</p>
+     *
+     * @param order the order of the merged results, {@code null} to keep them shard after shard
+     */
+    private List<TYPE> gather(List<List<TYPE>> results, Comparator<? super TYPE> order) {
+        var merged = results.stream().flatMap(List::stream);
+
+        return (order == null ? merged : merged.sorted(order)).toList();
+    }
+
+    private void assignIds(Collection<TYPE> entities) {
+        var missing = entities.stream().filter(entity -> idOf(entity) == null).toList();
+
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        onShard(ShardedDataSource.DEFAULT_SHARD, () -> transactionTemplate.execute(status -> {
+            var session = entityManager.unwrap(SessionImplementor.class);
+
+            for (var entity : missing) {
+                var persister = session.getEntityPersister(null, entity);
+
+                persister.setIdentifier(entity, persister.getIdentifierGenerator().generate(session, entity), session);
+            }
+
+            return null;
+        }));
+    }
+
+    /**
+     * <p>Replicate is the only insertion keeping an ID assigned beforehand, persist would generate another one</p>
+     */
+    @SuppressWarnings("deprecation")
+    private int replicate(List<TYPE> entities) {
+        var session = entityManager.unwrap(Session.class);
+
+        entities.forEach(entity -> session.replicate(entity, ReplicationMode.EXCEPTION));
+        session.flush();
+
+        return entities.size();
+    }
+
+    private LinkedHashMap<Integer, List<TYPE>> groupByShard(Collection<TYPE> entities) {
+        var shards = new LinkedHashMap<Integer, List<TYPE>>();
+
+        entities.forEach(entity -> shards.computeIfAbsent(shardOf(entity), shard -> new ArrayList<>()).add(entity));
+
+        return shards;
+    }
+
+    private <R, E extends Exception> R onShard(int shard, ShardedDataSource.ShardCall<R, E> call) throws E {
+        //the connection of a transaction is bound to the shard it began on
+        if (TransactionSynchronizationManager.isActualTransactionActive() && ShardedDataSource.currentShard() != shard) {
+            throw new IllegalTransactionStateException("The transaction of the shard " + ShardedDataSource.currentShard()
+                    + " can't be extended to the shard " + shard);
+        }
+
+        return ShardedDataSource.onShard(shard, call);
+    }
+
+    /**
+     * @return the results of the call on every shard, in the order of the shards
+     * @throws E the error of a failed shard, as thrown by a call on a single shard
+     */
+    @SuppressWarnings("unchecked")
+    private <R, E extends Exception> List<R> scatter(ShardedDataSource.ShardCall<R, E> call) throws E {
+        var futures = IntStream.range(0, shardCount)
+                .mapToObj(shard -> executor.submit(() -> ShardedDataSource.onShard(shard, call)))
+                .toList();
+
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+
+            if (cause instanceof CompletionException wrapped && wrapped.getCause() != null) {
+                cause = wrapped.getCause();
+            }
+
+            if (cause instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+
+            if (cause instanceof Exception exception) {
+                throw (E) exception;
+            }
+
+            throw e;
+        }
+
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ID idOf(TYPE entity) {
+        return (ID) EntityMetadata.of(entity.getClass()).getId(entity);
+    }
+}
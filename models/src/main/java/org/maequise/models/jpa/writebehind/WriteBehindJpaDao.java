@@ -0,0 +1,489 @@
+package org.maequise.models.jpa.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.JDBCConnectionException;
+import org.maequise.commons.exceptions.UpdateException;
+import org.maequise.models.config.TenantIdentifierResolver;
+import org.maequise.models.jpa.EntityMetadata;
+import org.maequise.models.jpa.JpaDao;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Write-behind buffer of the updates of a {@link JpaDao}, for the entities updated many times per second</p>
+ * <p>The updates are coalesced in memory by ID, only the last instance given for an ID is written, then flushed
+ * with {@link JpaDao#updateAll(java.util.Collection)}, one transaction per batch of {@code batchSize} entities,
+ * as soon as {@code batchSize} IDs are pending, every {@code flushInterval}, and when the bean is destroyed</p>
+ * <p>At most {@code maxPending} IDs are buffered, {@link #update(Object)} blocks beyond until a flush makes room.
+ * {@link #findById(Object)} sees the buffered updates, including the ones being flushed</p>
+ * <p>A batch that fails is split in halves, down to the single entities, so the failing updates are isolated and the
+ * others are written. A failed update is kept aside and retried by the next flush, unless a newer update
+ * of the same ID arrived meanwhile. After {@code maxAttempts} failed flushes, for instance when its row was deleted
+ * or its version is stale, it is dropped and handed to {@link #deadLetter(Object, Exception)}</p>
+ * <p>A failure of the connection or of the transaction fails every update alike, so the batch isn't split: the flush
+ * stops and keeps its updates for the next one, without counting an attempt. The {@code @Version} of the entities
+ * of a failed batch, incremented by the rolled back flush, is restored before they are retried</p>
+ * <p>The failed updates waiting for their retry count against {@code maxPending}, and at most {@code maxPending}
+ * of them are kept: beyond, the failed update is dropped the same way, so the memory stays bounded
+ * whatever the failures</p>
+ * <p>The updates are buffered for the tenant of the calling thread, see {@link TenantIdentifierResolver},
+ * and flushed for that tenant whatever the thread flushing them</p>
+ */
+@Slf4j
+public abstract class WriteBehindJpaDao<ID, TYPE> implements DisposableBean {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private final JpaDao<ID, TYPE> delegate;
+
+    private final int batchSize;
+
+    private final int maxPending;
+
+    private final int maxAttempts;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ScheduledExecutorService scheduler;
+
+    private Map<Key<ID>, TYPE> pending = new LinkedHashMap<>();
+
+    private Map<Key<ID>, TYPE> inFlight = Map.of();
+
+    /**
+     * <p>Failed updates waiting for the next flush, at most {@code maxPending}</p>
+     */
+    private final Map<Key<ID>, TYPE> retries = new LinkedHashMap<>();
+
+    /**
+     * <p>Failed flushes of the buffered updates, guarded by the flush lock</p>
+     */
+    private final Map<Key<ID>, Integer> attempts = new HashMap<>();
+
+    /**
+     * <p>The same ID may exist in several tenants</p>
+     */
+    private record Key<ID>(String tenant, ID id) {
+    }
+
+    private boolean closed;
+
+    protected WriteBehindJpaDao(JpaDao<ID, TYPE> delegate, int batchSize, int maxPending, Duration flushInterval) {
+        this(delegate, batchSize, maxPending, flushInterval, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * @param maxAttempts number of failed flushes after which an update is dropped
+     */
+    protected WriteBehindJpaDao(JpaDao<ID, TYPE> delegate, int batchSize, int maxPending, Duration flushInterval, int maxAttempts) {
+        if (batchSize < 1 || maxPending < batchSize) {
+            throw new IllegalArgumentException("The batch size must be positive and not above the maximum of pending updates");
+        }
+
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The attempts must be positive");
+        }
+
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.maxAttempts = maxAttempts;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "write-behind-" + getClass().getSimpleName());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        var interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * <p>Buffer the update of the entity, replacing the pending update of the same ID if any</p>
+     *
+     * @throws IllegalArgumentException if the entity has no ID
+     * @throws IllegalStateException    if the buffer is closed
+     * @throws InterruptedException     if interrupted while waiting for room in the buffer
+     */
+    public void update(TYPE entity) throws InterruptedException {
+        var id = idOf(entity);
+
+        if (id == null) {
+            throw new IllegalArgumentException("Only the entities with an ID can be updated");
+        }
+
+        var key = new Key<>(TenantIdentifierResolver.currentTenant(), id);
+        int size;
+
+        lock.lockInterruptibly();
+        try {
+            //an ID already pending is coalesced, it never waits
+            while (!closed && pending.size() + retries.size() >= maxPending && !pending.containsKey(key)) {
+                notFull.await();
+            }
+
+            if (closed) {
+                throw new IllegalStateException("The write-behind buffer is closed");
+            }
+
+            pending.put(key, entity);
+            size = pending.size();
+        } finally {
+            lock.unlock();
+        }
+
+        if (size >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                //closed meanwhile, the update is already buffered and written by the flush of destroy
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * @return the last buffered update of the entity, or else the entity read by the DAO
+     */
+    public TYPE findById(ID id) {
+        lock.lock();
+        try {
+            var key = new Key<>(TenantIdentifierResolver.currentTenant(), id);
+            var buffered = pending.get(key);
+
+            if (buffered == null) {
+                buffered = retries.get(key);
+            }
+
+            if (buffered == null) {
+                buffered = inFlight.get(key);
+            }
+
+            if (buffered != null) {
+                return buffered;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return delegate.findById(id);
+    }
+
+    /**
+     * @return the number of buffered updates, including the failed ones waiting for their retry
+     */
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size() + retries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * <p>Write all the updates buffered so far</p>
+     *
+     * @return the number of updated entities
+     * @throws UpdateException if some updates failed, once the others are written, the failed updates stay buffered
+     *                         until their last attempt
+     */
+    public int flush() throws UpdateException {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+
+            var batch = takePending();
+            var errors = new ArrayList<Exception>();
+            var updated = 0;
+            Exception unavailable = null;
+
+            try {
+                for (var tenant : batch.entrySet()) {
+                    var entities = tenant.getValue();
+
+                    for (var from = 0; from < entities.size(); from += batchSize) {
+                        var chunk = entities.subList(from, Math.min(from + batchSize, entities.size()));
+
+                        if (unavailable != null) {
+                            //the next batches would fail the same way
+                            var cause = unavailable;
+                            chunk.forEach(entity -> failed(tenant.getKey(), entity, cause, false));
+                            continue;
+                        }
+
+                        try {
+                            updated += TenantIdentifierResolver.onTenant(tenant.getKey(), () -> write(tenant.getKey(), chunk, errors));
+                        } catch (UpdateException | RuntimeException e) {
+                            if (!isUnavailable(e)) {
+                                throw e;
+                            }
+
+                            unavailable = e;
+                            errors.add(e);
+                        }
+                    }
+                }
+            } finally {
+                clearInFlight();
+            }
+
+            if (!errors.isEmpty()) {
+                var error = new UpdateException(errors.size() + " updates failed during the write-behind flush", errors.get(0));
+                errors.stream().skip(1).forEach(error::addSuppressed);
+
+                throw error;
+            }
+
+            return updated;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * <p>Called with an update dropped after {@code maxAttempts} failed flushes, or failed while the retries are full,
+     * logs it by default</p>
+     *
+     * @param cause the error of the last attempt
+     */
+    protected void deadLetter(TYPE entity, Exception cause) {
+        log.error("Write-behind update of the entity {} dropped after its failed flushes", idOf(entity), cause);
+    }
+
+    /**
+     * <p>Refuse the new updates, then write the buffered ones</p>
+     */
+    @Override
+    public void destroy() throws UpdateException, InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        scheduler.shutdown();
+        scheduler.awaitTermination(30, TimeUnit.SECONDS);
+
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (UpdateException e) {
+            log.error("Error during the write-behind flush, the updates are retried by the next flush", e);
+        }
+    }
+
+    /**
+     * @return the retried then the pending updates by tenant, in their order
+     */
+    private Map<String, List<TYPE>> takePending() {
+        lock.lock();
+        try {
+            var taken = new LinkedHashMap<Key<ID>, TYPE>();
+
+            retries.forEach((key, entity) -> {
+                if (pending.containsKey(key)) {
+                    //superseded by a newer update, which gets its own attempts
+                    attempts.remove(key);
+                } else {
+                    taken.put(key, entity);
+                }
+            });
+            taken.putAll(pending);
+
+            var batch = new LinkedHashMap<String, List<TYPE>>();
+            taken.forEach((key, entity) -> batch.computeIfAbsent(key.tenant(), tenant -> new ArrayList<>()).add(entity));
+
+            inFlight = taken;
+            pending = new LinkedHashMap<>();
+            retries.clear();
+            notFull.signalAll();
+
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * <p>Write the chunk, or else its halves, so that only the failing entities are kept out</p>
+     *
+     * @return the number of updated entities
+     * @throws UpdateException if the failure isn't specific to some entities, the entities not written yet are kept
+     *                         for the next flush
+     */
+    private int write(String tenant, List<TYPE> chunk, List<Exception> errors) throws UpdateException {
+        var parts = new ArrayDeque<List<TYPE>>();
+        var updated = 0;
+
+        parts.push(chunk);
+
+        while (!parts.isEmpty()) {
+            var part = parts.pop();
+            var versions = part.stream().map(WriteBehindJpaDao::versionOf).toList();
+
+            try {
+                updated += delegate.updateAll(part);
+
+                part.forEach(entity -> attempts.remove(new Key<>(tenant, idOf(entity))));
+            } catch (UpdateException | RuntimeException e) {
+                //the rolled back flush already incremented the versions
+                for (var i = 0; i < part.size(); i++) {
+                    restoreVersion(part.get(i), versions.get(i));
+                }
+
+                if (isUnavailable(e)) {
+                    parts.push(part);
+                    parts.forEach(unwritten -> unwritten.forEach(entity -> failed(tenant, entity, e, false)));
+
+                    throw e;
+                }
+
+                if (part.size() > 1) {
+                    var half = part.size() / 2;
+
+                    parts.push(part.subList(half, part.size()));
+                    parts.push(part.subList(0, half));
+                } else {
+                    errors.add(e);
+                    failed(tenant, part.get(0), e, true);
+                }
+            }
+        }
+
+        return updated;
+    }
+
+    /**
+     * @param attempted whether the update itself failed, and counts as an attempt
+     */
+    private void failed(String tenant, TYPE entity, Exception cause, boolean attempted) {
+        var key = new Key<>(tenant, idOf(entity));
+
+        if (attempted && attempts.merge(key, 1, Integer::sum) >= maxAttempts) {
+            attempts.remove(key);
+
+            if (!isSuperseded(key)) {
+                deadLetter(entity, cause);
+            }
+
+            return;
+        }
+
+        var retry = retry(key, entity);
+
+        //a superseded update leaves its attempts to the newer one
+        if (retry != Retry.QUEUED) {
+            attempts.remove(key);
+        }
+
+        if (retry == Retry.FULL) {
+            deadLetter(entity, cause);
+        }
+    }
+
+    private enum Retry {
+        QUEUED, SUPERSEDED, FULL
+    }
+
+    private Retry retry(Key<ID> key, TYPE entity) {
+        lock.lock();
+        try {
+            if (pending.containsKey(key)) {
+                return Retry.SUPERSEDED;
+            }
+
+            if (retries.size() >= maxPending) {
+                return Retry.FULL;
+            }
+
+            retries.put(key, entity);
+
+            return Retry.QUEUED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isSuperseded(Key<ID> key) {
+        lock.lock();
+        try {
+            return pending.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void clearInFlight() {
+        lock.lock();
+        try {
+            inFlight = Map.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * <p>A connection or transaction failure, not caused by the rows of the batch</p>
+     */
+    private static boolean isUnavailable(Throwable error) {
+        for (var cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CannotCreateTransactionException || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof JDBCConnectionException || cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLNonTransientConnectionException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Object versionOf(Object entity) {
+        var metadata = EntityMetadata.of(entity.getClass());
+
+        return metadata.getVersionAttribute() != null ? metadata.getVersion(entity) : null;
+    }
+
+    private static void restoreVersion(Object entity, Object version) {
+        var metadata = EntityMetadata.of(entity.getClass());
+
+        if (metadata.getVersionAttribute() != null) {
+            metadata.setVersion(entity, version);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ID idOf(TYPE entity) {
+        return (ID) EntityMetadata.of(entity.getClass()).getId(entity);
+    }
+}
@@ -0,0 +1,15 @@
+package org.maequise.models.monitoring;
+
+/**
+ * <p>Counters of a region of the second-level cache since its creation</p>
+ */
+public record CacheRegionStatistics(String region, long hits, long misses, long puts, long evictions, long removals) {
+    /**
+     * @return the ratio of the gets served by the cache, between 0 and 1
+     */
+    public double hitRatio() {
+        var gets = hits + misses;
+
+        return gets == 0 ? 0 : (double) hits / gets;
+    }
+}
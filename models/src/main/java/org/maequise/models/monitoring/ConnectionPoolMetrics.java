@@ -0,0 +1,29 @@
+package org.maequise.models.monitoring;
+
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.maequise.models.config.ConnectionPools;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * <p>Publish the active, idle and pending connections and the acquire, usage and creation times of every pool,
+ * replicas included, as {@code hikaricp.*} meters tagged with the pool name</p>
+ * <p>A pool already tracked, by the actuator for instance, is left untouched</p>
+ */
+@Component
+public class ConnectionPoolMetrics {
+    public ConnectionPoolMetrics(DataSource dataSource, ObjectProvider<MeterRegistry> registry) throws SQLException {
+        var meterRegistry = registry.getIfAvailable(() -> Metrics.globalRegistry);
+
+        for (var pool : ConnectionPools.of(dataSource)) {
+            if (pool.getMetricRegistry() == null && pool.getMetricsTrackerFactory() == null) {
+                pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.maequise.models.monitoring;
+
+/**
+ * <p>Current state of a connection pool</p>
+ *
+ * @param threadsAwaitingConnection threads blocked until a connection is released, should stay at 0
+ */
+public record ConnectionPoolStatistics(String pool,
+                                       int activeConnections,
+                                       int idleConnections,
+                                       int totalConnections,
+                                       int threadsAwaitingConnection,
+                                       int maximumPoolSize,
+                                       int minimumIdle) {
+}
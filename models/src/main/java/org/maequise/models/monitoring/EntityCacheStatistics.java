@@ -0,0 +1,58 @@
+package org.maequise.models.monitoring;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Read the counters of the regions of the second-level cache, from the JSR-107 {@code CacheStatistics}
+ * MBeans registered by the cache provider, also available to any JMX scraper</p>
+ */
+@Component
+@ConditionalOnProperty(name = "datasource.cache.enabled", havingValue = "true")
+@AllArgsConstructor
+public class EntityCacheStatistics {
+    private CacheManager entityCacheManager;
+
+    public List<CacheRegionStatistics> regions() {
+        return StreamSupport.stream(entityCacheManager.getCacheNames().spliterator(), false)
+                .map(this::region)
+                .toList();
+    }
+
+    public CacheRegionStatistics region(String region) {
+        var statistics = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), objectName(region), CacheStatisticsMXBean.class);
+
+        return new CacheRegionStatistics(region,
+                statistics.getCacheHits(),
+                statistics.getCacheMisses(),
+                statistics.getCachePuts(),
+                statistics.getCacheEvictions(),
+                statistics.getCacheRemovals());
+    }
+
+    private ObjectName objectName(String region) {
+        try {
+            return new ObjectName("javax.cache:type=CacheStatistics,CacheManager=" + sanitize(entityCacheManager.getURI().toString())
+                    + ",Cache=" + sanitize(region));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid name of region : " + region, e);
+        }
+    }
+
+    /**
+     * <p>Same escaping as the one applied by the providers when registering the MBeans</p>
+     */
+    private static String sanitize(String name) {
+        return name == null ? "" : name.replaceAll("[,:=\n]", ".");
+    }
+}
@@ -0,0 +1,133 @@
+package org.maequise.models.monitoring;
+
+import io.micrometer.core.instrument.*;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.maequise.models.jpa.JpaDao;
+import org.maequise.models.jpa.KeysetPage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ResolvableType;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * <p>Record the latency, the rows returned and the errors of every {@link JpaDao} operation, tagged with the entity
+ * and the operation</p>
+ * <p>The aspect is only registered with {@code datasource.metrics.enabled}, otherwise the DAOs are not advised at all.
+ * The meters are resolved once per DAO class and method, so a measured call only costs the timer and summary updates</p>
+ * <p>The latency of the stream operations covers the opening of the stream, their rows are recorded when the stream is closed</p>
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "datasource.metrics.enabled", havingValue = "true")
+public class JpaDaoMetrics {
+    public static final String OPERATION_TIMER = "jpa.dao.operation";
+    public static final String ROWS_SUMMARY = "jpa.dao.rows";
+    public static final String ERRORS_COUNTER = "jpa.dao.errors";
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry registry;
+
+    private final boolean percentileHistogram;
+
+    private final ClassValue<Map<Method, OperationMeters>> meters = new ClassValue<>() {
+        @Override
+        protected Map<Method, OperationMeters> computeValue(Class<?> daoClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    public JpaDaoMetrics(ObjectProvider<MeterRegistry> registry,
+                         @Value("${datasource.metrics.percentile-histogram:false}") boolean percentileHistogram) {
+        this.registry = registry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    @Around("execution(* org.maequise.models.jpa.JpaDao.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        var method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        var operation = meters.get(joinPoint.getTarget().getClass())
+                .computeIfAbsent(method, m -> createMeters(joinPoint.getTarget().getClass(), m));
+
+        var sample = Timer.start(registry);
+
+        try {
+            var result = joinPoint.proceed();
+
+            sample.stop(operation.success());
+
+            return operation.rows() == null ? result : recordRows(operation.rows(), result);
+        } catch (Throwable e) {
+            sample.stop(operation.failure());
+            registry.counter(ERRORS_COUNTER, operation.tags().and("exception", e.getClass().getSimpleName())).increment();
+
+            throw e;
+        }
+    }
+
+    private OperationMeters createMeters(Class<?> daoClass, Method method) {
+        var entity = ResolvableType.forClass(daoClass).as(JpaDao.class).resolveGeneric(1);
+        var tags = Tags.of("entity", entity == null ? "unknown" : entity.getSimpleName(), "operation", method.getName());
+
+        DistributionSummary rows = null;
+        if (method.getName().startsWith("find") || method.getName().startsWith("fetch")) {
+            rows = DistributionSummary.builder(ROWS_SUMMARY)
+                    .description("Rows returned by the DAO operation")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        return new OperationMeters(tags, timer(tags, "success"), timer(tags, "error"), rows);
+    }
+
+    private Timer timer(Tags tags, String outcome) {
+        return Timer.builder(OPERATION_TIMER)
+                .description("Latency of the DAO operation")
+                .tags(tags)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram(percentileHistogram)
+                .register(registry);
+    }
+
+    private static Object recordRows(DistributionSummary rows, Object result) {
+        if (result instanceof Stream<?> stream) {
+            var count = new LongAdder();
+
+            return stream.peek(row -> {
+                if (row != null) {
+                    count.increment();
+                }
+            }).onClose(() -> rows.record(count.sum()));
+        }
+
+        //the ordered loads by ID return a null for every ID not found, it isn't a row
+        if (result instanceof Collection<?> collection) {
+            rows.record(collection.stream().filter(Objects::nonNull).count());
+        } else if (result instanceof KeysetPage<?> page) {
+            rows.record(page.content().size());
+        } else if (result instanceof Optional<?> optional) {
+            rows.record(optional.isPresent() ? 1 : 0);
+        } else {
+            rows.record(result == null ? 0 : 1);
+        }
+
+        return result;
+    }
+
+    private record OperationMeters(Tags tags, Timer success, Timer failure, DistributionSummary rows) {
+    }
+}
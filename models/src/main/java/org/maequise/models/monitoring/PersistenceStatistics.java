@@ -0,0 +1,111 @@
+package org.maequise.models.monitoring;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.maequise.models.config.ConnectionPools;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>Snapshots of the statistics of the session factory, collected with {@code datasource.statistics.enabled}
+ * or once enabled at runtime with {@link #setEnabled(boolean)}, and of the state of the connection pools</p>
+ */
+@Component
+public class PersistenceStatistics {
+    private final Statistics statistics;
+
+    private final List<HikariDataSource> pools;
+
+    public PersistenceStatistics(EntityManagerFactory entityManagerFactory, DataSource dataSource) throws SQLException {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.pools = ConnectionPools.of(dataSource);
+    }
+
+    public boolean isEnabled() {
+        return statistics.isStatisticsEnabled();
+    }
+
+    /**
+     * <p>Switch the collection of the statistics, disabled it costs a single check per event.
+     * The counters restart from zero when the collection is enabled again</p>
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !statistics.isStatisticsEnabled()) {
+            statistics.clear();
+        }
+
+        statistics.setStatisticsEnabled(enabled);
+    }
+
+    public void clear() {
+        statistics.clear();
+    }
+
+    public QueryPlanCacheStatistics queryPlanCache() {
+        return new QueryPlanCacheStatistics(statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount());
+    }
+
+    public SessionFactoryStatistics sessionFactory() {
+        return new SessionFactoryStatistics(statistics.getSessionOpenCount(),
+                statistics.getTransactionCount(),
+                statistics.getFlushCount(),
+                statistics.getPrepareStatementCount(),
+                statistics.getQueryExecutionCount(),
+                statistics.getQueryExecutionMaxTime(),
+                statistics.getQueryExecutionMaxTimeQueryString(),
+                statistics.getEntityLoadCount(),
+                statistics.getEntityFetchCount(),
+                statistics.getEntityInsertCount(),
+                statistics.getEntityUpdateCount(),
+                statistics.getEntityDeleteCount(),
+                statistics.getCollectionLoadCount(),
+                statistics.getCollectionFetchCount(),
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount());
+    }
+
+    /**
+     * @return the statistics of the executed JPQL queries, the slowest first
+     */
+    public List<QueryExecutionStatistics> queries() {
+        return Arrays.stream(statistics.getQueries())
+                .map(query -> {
+                    var queryStatistics = statistics.getQueryStatistics(query);
+
+                    return new QueryExecutionStatistics(query,
+                            queryStatistics.getExecutionCount(),
+                            queryStatistics.getExecutionRowCount(),
+                            queryStatistics.getExecutionAvgTime(),
+                            queryStatistics.getExecutionMaxTime());
+                })
+                .sorted(Comparator.comparingLong(QueryExecutionStatistics::maxTime).reversed())
+                .toList();
+    }
+
+    public List<ConnectionPoolStatistics> connectionPools() {
+        return pools.stream()
+                .filter(pool -> pool.getHikariPoolMXBean() != null)
+                .map(pool -> {
+                    var state = pool.getHikariPoolMXBean();
+
+                    return new ConnectionPoolStatistics(pool.getPoolName(),
+                            state.getActiveConnections(),
+                            state.getIdleConnections(),
+                            state.getTotalConnections(),
+                            state.getThreadsAwaitingConnection(),
+                            pool.getMaximumPoolSize(),
+                            pool.getMinimumIdle());
+                })
+                .toList();
+    }
+}
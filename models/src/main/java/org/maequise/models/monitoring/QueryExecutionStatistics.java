@@ -0,0 +1,7 @@
+package org.maequise.models.monitoring;
+
+/**
+ * <p>Executions of a JPQL query since the statistics were enabled or cleared, the times are in milliseconds</p>
+ */
+public record QueryExecutionStatistics(String query, long executionCount, long rowCount, long averageTime, long maxTime) {
+}
@@ -0,0 +1,155 @@
+package org.maequise.models.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * <p>Listener of the JDBC statements replacing the echo of every statement: only the statements slower than
+ * {@code slowThreshold} are logged, with a summary of their bind parameters. The values of the parameters may hold
+ * personal data, they are masked unless {@code logParameters} is set</p>
+ * <p>The statements of each transaction are counted, a select executed more than {@code repeatedThreshold} times
+ * in the same transaction is reported once as a likely N+1 select, and the total is logged in debug at the end
+ * of the transaction. The batches and the other statements are never reported, the bulk operations of the DAOs
+ * repeat them on purpose</p>
+ */
+@Slf4j
+public class QueryLogListener implements QueryExecutionListener {
+    private static final int MAX_VALUE_LENGTH = 50;
+
+    private final long slowThresholdMillis;
+
+    private final int repeatedThreshold;
+
+    private final boolean logParameters;
+
+    public QueryLogListener(Duration slowThreshold, int repeatedThreshold, boolean logParameters) {
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.repeatedThreshold = repeatedThreshold;
+        this.logParameters = logParameters;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        //everything is known after the execution
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        if (execution.getElapsedTime() >= slowThresholdMillis && log.isWarnEnabled()) {
+            for (var query : queries) {
+                log.warn("Slow statement on {} ({} ms{}): {} with params {}", execution.getDataSourceName(),
+                        execution.getElapsedTime(), execution.isBatch() ? ", batch of " + execution.getBatchSize() : "",
+                        query.getQuery(), summarizeParams(query, logParameters));
+            }
+        }
+
+        var statements = currentTransactionStatements();
+
+        if (statements != null) {
+            queries.forEach(query -> statements.executed(query.getQuery(),
+                    !execution.isBatch() && QueryUtils.getQueryType(query.getQuery()) == QueryType.SELECT));
+        }
+    }
+
+    /**
+     * @return the counters of the current transaction, {@code null} outside a transaction
+     */
+    private TransactionStatements currentTransactionStatements() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        //the synchronizations of a suspended transaction aren't listed, so an inner transaction has its own counters
+        for (var synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionStatements statements && statements.listener() == this) {
+                return statements;
+            }
+        }
+
+        var statements = new TransactionStatements();
+        TransactionSynchronizationManager.registerSynchronization(statements);
+
+        return statements;
+    }
+
+    /**
+     * @param values {@code false} to replace each value by {@code ?}
+     * @return the parameters of the first execution, followed by the number of the other executions of a batch
+     */
+    static String summarizeParams(QueryInfo query, boolean values) {
+        var parametersList = query.getParametersList();
+
+        if (parametersList.isEmpty()) {
+            return "[]";
+        }
+
+        var joiner = new StringJoiner(", ", "[", "]");
+
+        for (var operation : parametersList.get(0)) {
+            joiner.add(values ? summarizeValue(operation) : "?");
+        }
+
+        var summary = joiner.toString();
+
+        return parametersList.size() > 1 ? summary + " (+" + (parametersList.size() - 1) + " more)" : summary;
+    }
+
+    private static String summarizeValue(ParameterSetOperation operation) {
+        var args = operation.getArgs();
+
+        if (ParameterSetOperation.isSetNullParameterOperation(operation) || args.length < 2 || args[1] == null) {
+            return "null";
+        }
+
+        if (args[1] instanceof byte[] bytes) {
+            return "byte[" + bytes.length + "]";
+        }
+
+        var value = String.valueOf(args[1]);
+
+        return value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) + "...(" + value.length() + " chars)" : value;
+    }
+
+    private final class TransactionStatements implements TransactionSynchronization {
+        private final Map<String, Integer> executions = new HashMap<>();
+
+        private int total;
+
+        private QueryLogListener listener() {
+            return QueryLogListener.this;
+        }
+
+        private void executed(String sql, boolean select) {
+            total++;
+
+            if (!select) {
+                return;
+            }
+
+            var count = executions.merge(sql, 1, Integer::sum);
+
+            if (count == repeatedThreshold + 1) {
+                log.warn("Statement executed more than {} times in the same transaction, likely an N+1 select: {}",
+                        repeatedThreshold, sql);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            log.debug("{} statements executed by the transaction, {} distinct", total, executions.size());
+        }
+    }
+}
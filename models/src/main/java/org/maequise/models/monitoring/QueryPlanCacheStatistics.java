@@ -0,0 +1,15 @@
+package org.maequise.models.monitoring;
+
+/**
+ * <p>Counters of the cache of the query plans, the parsed form of the JPQL queries</p>
+ */
+public record QueryPlanCacheStatistics(long hits, long misses) {
+    /**
+     * @return the ratio of the queries whose plan was found in the cache, between 0 and 1
+     */
+    public double hitRatio() {
+        var lookups = hits + misses;
+
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
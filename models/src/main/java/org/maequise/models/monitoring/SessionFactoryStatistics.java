@@ -0,0 +1,48 @@
+package org.maequise.models.monitoring;
+
+/**
+ * <p>Counters of the session factory since the statistics were enabled or cleared</p>
+ *
+ * @param queryExecutionMaxTime      the slowest execution of a query, in milliseconds
+ * @param queryExecutionMaxTimeQuery the query of the slowest execution
+ * @param secondLevelCacheHits       gets of entities, collections and natural ids served by the second-level cache
+ */
+public record SessionFactoryStatistics(long sessionOpenCount,
+                                       long transactionCount,
+                                       long flushCount,
+                                       long prepareStatementCount,
+                                       long queryExecutionCount,
+                                       long queryExecutionMaxTime,
+                                       String queryExecutionMaxTimeQuery,
+                                       long entityLoadCount,
+                                       long entityFetchCount,
+                                       long entityInsertCount,
+                                       long entityUpdateCount,
+                                       long entityDeleteCount,
+                                       long collectionLoadCount,
+                                       long collectionFetchCount,
+                                       long secondLevelCacheHits,
+                                       long secondLevelCacheMisses,
+                                       long secondLevelCachePuts,
+                                       long queryCacheHits,
+                                       long queryCacheMisses) {
+    /**
+     * @return the ratio of the gets served by the second-level cache, between 0 and 1
+     */
+    public double secondLevelCacheHitRatio() {
+        return ratio(secondLevelCacheHits, secondLevelCacheMisses);
+    }
+
+    /**
+     * @return the ratio of the cacheable queries served by the query cache, between 0 and 1
+     */
+    public double queryCacheHitRatio() {
+        return ratio(queryCacheHits, queryCacheMisses);
+    }
+
+    private static double ratio(long hits, long misses) {
+        var gets = hits + misses;
+
+        return gets == 0 ? 0 : (double) hits / gets;
+    }
+}
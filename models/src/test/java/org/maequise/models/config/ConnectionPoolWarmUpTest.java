@@ -0,0 +1,38 @@
+package org.maequise.models.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolWarmUpTest {
+    @Test
+    void testWarmUpOpensConnections() {
+        try (var pool = pool("warm-up", 5)) {
+            new ConnectionPoolWarmUp(pool, 4).afterSingletonsInstantiated();
+
+            assertEquals(4, pool.getHikariPoolMXBean().getTotalConnections());
+            assertEquals(0, pool.getHikariPoolMXBean().getActiveConnections());
+        }
+    }
+
+    @Test
+    void testWarmUpBoundedByPoolSize() {
+        try (var pool = pool("bounded-warm-up", 2)) {
+            new ConnectionPoolWarmUp(pool, 10).afterSingletonsInstantiated();
+
+            assertEquals(2, pool.getHikariPoolMXBean().getTotalConnections());
+        }
+    }
+
+    private static HikariDataSource pool(String name, int maximumPoolSize) {
+        var config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl("jdbc:h2:mem:" + name);
+        config.setMinimumIdle(0);
+        config.setMaximumPoolSize(maximumPoolSize);
+
+        return new HikariDataSource(config);
+    }
+}
@@ -1,13 +1,22 @@
 package org.maequise.models.config;
 
 import com.zaxxer.hikari.HikariDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
 import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
 import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,7 +29,8 @@ class DatabaseConfigurationTest {
     @BeforeEach
     void init() {
         this.databaseConfiguration = mock(DatabaseConfiguration.class, CALLS_REAL_METHODS);
-        this.env = mock(Environment.class);
+        //the pool settings are bound from the property sources of a real environment
+        this.env = spy(new StandardEnvironment());
 
         ReflectionTestUtils.setField(databaseConfiguration, "env", env);
     }
@@ -39,6 +49,45 @@ class DatabaseConfigurationTest {
         assertNotNull(databaseConfiguration.dataSource());
     }
 
+    @Test
+    void testDataSourcePoolSettings() throws Exception {
+        ((StandardEnvironment) env).getPropertySources().addFirst(new MapPropertySource("pool", Map.of(
+                "datasource.url", "jdbc:h2:mem:pool",
+                "datasource.pool.maximum-pool-size", "3",
+                "datasource.pool.leak-detection-threshold", "60000",
+                "datasource.pool.data-source-properties.cachePrepStmts", "true")));
+
+        try (var dataSource = (HikariDataSource) databaseConfiguration.dataSource()) {
+            assertEquals(3, dataSource.getMaximumPoolSize());
+            assertEquals(60_000, dataSource.getLeakDetectionThreshold());
+            assertEquals("true", dataSource.getDataSourceProperties().getProperty("cachePrepStmts"));
+        }
+    }
+
+    @Test
+    void testDataSourceStatementsAreListened() throws Exception {
+        ((StandardEnvironment) env).getPropertySources().addFirst(new MapPropertySource("query-log", Map.of(
+                "datasource.url", "jdbc:h2:mem:query-log")));
+
+        try (var dataSource = (HikariDataSource) databaseConfiguration.dataSource();
+             var connection = dataSource.getConnection()) {
+            assertInstanceOf(ProxyDataSource.class, dataSource.getDataSource());
+            assertTrue(connection.isValid(1));
+        }
+
+        assertFalse(databaseConfiguration.jpaProperties().isShowSql());
+    }
+
+    @Test
+    void testDataSourceShardsRefuseCache() {
+        ((StandardEnvironment) env).getPropertySources().addFirst(new MapPropertySource("shards", Map.of(
+                "datasource.url", "jdbc:h2:mem:cached-shard0",
+                "datasource.shards[0].url", "jdbc:h2:mem:cached-shard1",
+                "datasource.cache.enabled", "true")));
+
+        assertThrows(IllegalStateException.class, () -> databaseConfiguration.dataSource());
+    }
+
 /*    @Test
     void testDataSourceWithSchemaFilled() {
         when(env.getProperty("datasource.url"))
@@ -71,4 +120,30 @@ class DatabaseConfigurationTest {
 
         assertNotNull(databaseConfiguration.jpaProperties());
     }
+
+    @Test
+    void testJpaPropertiesEnableBatching() {
+        when(env.getProperty("datasource.batch-size", "50"))
+                .thenReturn("100");
+
+        var properties = databaseConfiguration.jpaProperties().getProperties();
+
+        assertEquals("100", properties.get("hibernate.jdbc.batch_size"));
+        assertEquals("true", properties.get("hibernate.order_inserts"));
+    }
+
+    @Test
+    void testEntityCacheManagerDeclaresRegions() {
+        when(env.getProperty(anyString(), eq(Long.class), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+        when(env.getProperty(anyString(), eq(Duration.class), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+
+        try (var cacheManager = databaseConfiguration.entityCacheManager()) {
+            var regions = new ArrayList<String>();
+            cacheManager.getCacheNames().forEach(regions::add);
+
+            assertTrue(regions.containsAll(List.of("users", "default-query-results-region", "default-update-timestamps-region")));
+        }
+    }
 }
@@ -0,0 +1,193 @@
+package org.maequise.models.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.daos.AsyncUserDao;
+import org.maequise.models.jpa.daos.UserDao;
+import org.maequise.models.jpa.daos.WriteBehindUserDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>The tenants are schemas of the same H2 database, their rows are counted directly to check where the users were inserted</p>
+ */
+@SpringBootTest(properties = {
+        "datasource.url=jdbc:h2:mem:tenants;DB_CLOSE_DELAY=-1",
+        "datasource.pool.connection-timeout=250",
+        "datasource.multi-tenancy.enabled=true",
+        "datasource.multi-tenancy.tenants=alpha,beta",
+        "datasource.multi-tenancy.max-connections-per-tenant=2",
+        "datasource.write-behind.enabled=true",
+        "datasource.write-behind.flush-interval=1h"
+})
+@ActiveProfiles("test")
+class MultiTenancyIntegrationTest {
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private AsyncUserDao asyncUserDao;
+
+    @Autowired
+    private WriteBehindUserDao writeBehindUserDao;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TenantConnectionProvider tenantConnectionProvider;
+
+    @BeforeEach
+    void init() throws Exception {
+        writeBehindUserDao.flush();
+        userDao.deleteAll();
+        TenantIdentifierResolver.onTenant("alpha", userDao::deleteAll);
+        TenantIdentifierResolver.onTenant("beta", userDao::deleteAll);
+    }
+
+    @Test
+    void testTenantsAreIsolated() throws Exception {
+        TenantIdentifierResolver.onTenant("alpha", () -> userDao.insert(createUserEntity("alpha")));
+        TenantIdentifierResolver.onTenant("beta", () -> userDao.insert(createUserEntity("beta1")));
+        TenantIdentifierResolver.onTenant("beta", () -> userDao.insert(createUserEntity("beta2")));
+
+        assertEquals(1, countRows("TENANT_ALPHA"));
+        assertEquals(2, countRows("TENANT_BETA"));
+        assertEquals(0, countRows("PUBLIC"));
+
+        assertEquals(1, TenantIdentifierResolver.onTenant("alpha", () -> userDao.count()));
+        assertEquals(2, TenantIdentifierResolver.onTenant("beta", () -> userDao.count()));
+        assertEquals(0, userDao.count());
+    }
+
+    @Test
+    void testAsyncCallKeepsTenant() throws Exception {
+        TenantIdentifierResolver.onTenant("alpha", () -> asyncUserDao.insert(createUserEntity("async")).join());
+
+        assertEquals(1, countRows("TENANT_ALPHA"));
+        assertEquals(0, countRows("PUBLIC"));
+    }
+
+    @Test
+    void testWriteBehindFlushedOnTenant() throws Exception {
+        var alpha = TenantIdentifierResolver.onTenant("alpha", () -> userDao.insert(createUserEntity("alpha")));
+        var beta = TenantIdentifierResolver.onTenant("beta", () -> userDao.insert(createUserEntity("beta")));
+
+        alpha.setEmail("changed@alpha");
+        beta.setEmail("changed@beta");
+        TenantIdentifierResolver.onTenant("alpha", () -> {
+            writeBehindUserDao.update(alpha);
+            return null;
+        });
+        TenantIdentifierResolver.onTenant("beta", () -> {
+            writeBehindUserDao.update(beta);
+            return null;
+        });
+
+        //buffered per tenant, even for the same ID
+        assertEquals(2, writeBehindUserDao.pendingCount());
+        assertEquals("changed@alpha", TenantIdentifierResolver.onTenant("alpha", () -> writeBehindUserDao.findById(alpha.getId())).getEmail());
+
+        //flushed from a thread without tenant
+        assertEquals(2, writeBehindUserDao.flush());
+
+        assertEquals("changed@alpha", TenantIdentifierResolver.onTenant("alpha", () -> userDao.findById(alpha.getId())).getEmail());
+        assertEquals("changed@beta", TenantIdentifierResolver.onTenant("beta", () -> userDao.findById(beta.getId())).getEmail());
+        assertEquals(0, countRows("PUBLIC"));
+    }
+
+    @Test
+    void testConnectionsReturnedOnDefaultSchema() throws Exception {
+        TenantIdentifierResolver.onTenant("alpha", () -> userDao.insert(createUserEntity("alpha")));
+
+        assertEquals(0, tenantConnectionProvider.borrowedConnections("alpha"));
+
+        try (var connection = dataSource.getConnection()) {
+            assertEquals("PUBLIC", connection.getSchema());
+        }
+    }
+
+    @Test
+    void testConnectionQuotaPerTenant() throws Exception {
+        var first = tenantConnectionProvider.getConnection("alpha");
+        var second = tenantConnectionProvider.getConnection("alpha");
+
+        try {
+            assertEquals("TENANT_ALPHA", first.getSchema());
+            assertEquals(2, tenantConnectionProvider.borrowedConnections("alpha"));
+            assertThrows(SQLTransientConnectionException.class, () -> tenantConnectionProvider.getConnection("alpha"));
+
+            //the other tenants still get their connections
+            var other = tenantConnectionProvider.getConnection("beta");
+            assertEquals("TENANT_BETA", other.getSchema());
+            tenantConnectionProvider.releaseConnection("beta", other);
+        } finally {
+            tenantConnectionProvider.releaseConnection("alpha", first);
+            tenantConnectionProvider.releaseConnection("alpha", second);
+        }
+
+        assertEquals(0, tenantConnectionProvider.borrowedConnections("alpha"));
+    }
+
+    @Test
+    void testSchemaCreationWithinQuota() throws Exception {
+        var first = tenantConnectionProvider.getConnection("alpha");
+        var second = tenantConnectionProvider.getConnection("alpha");
+
+        try {
+            assertThrows(SQLTransientConnectionException.class, () -> tenantConnectionProvider.createSchema("alpha"));
+        } finally {
+            tenantConnectionProvider.releaseConnection("alpha", first);
+            tenantConnectionProvider.releaseConnection("alpha", second);
+        }
+
+        tenantConnectionProvider.createSchema("gamma");
+
+        assertEquals(0, tenantConnectionProvider.borrowedConnections("gamma"));
+
+        var connection = tenantConnectionProvider.getConnection("gamma");
+
+        try {
+            assertEquals("TENANT_GAMMA", connection.getSchema());
+            assertEquals(1, tenantConnectionProvider.borrowedConnections("gamma"));
+        } finally {
+            tenantConnectionProvider.releaseConnection("gamma", connection);
+        }
+    }
+
+    @Test
+    void testUnknownTenant() {
+        assertThrows(SQLException.class, () -> tenantConnectionProvider.getConnection("unknown"));
+        assertThrows(IllegalArgumentException.class, () -> tenantConnectionProvider.getConnection("alpha;drop"));
+
+        //the connection used to check the schema is returned within the quota
+        assertEquals(0, tenantConnectionProvider.borrowedConnections("unknown"));
+    }
+
+    private long countRows(String schema) throws SQLException {
+        try (var connection = dataSource.getConnection();
+             var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("select count(*) from " + schema + ".USERS")) {
+            resultSet.next();
+
+            return resultSet.getLong(1);
+        }
+    }
+
+    private UserEntity createUserEntity(String name) {
+        var user = new UserEntity();
+
+        user.setUsername(name);
+        user.setEmail(name + "@mail");
+
+        return user;
+    }
+}
@@ -0,0 +1,84 @@
+package org.maequise.models.config;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.daos.UserDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>The replicas are distinct H2 databases holding their own rows, so the rows read tell which database served the query</p>
+ */
+@SpringBootTest(properties = {
+        "datasource.replicas[0].url=" + ReadWriteDataSourceIntegrationTest.REPLICA_0,
+        "datasource.replicas[1].url=" + ReadWriteDataSourceIntegrationTest.REPLICA_1
+})
+@ActiveProfiles("test")
+class ReadWriteDataSourceIntegrationTest {
+    static final String REPLICA_0 = "jdbc:h2:mem:replica0;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_1 = "jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void createReplicas() throws SQLException {
+        createReplica(REPLICA_0, "replica0");
+        createReplica(REPLICA_1, "replica1");
+    }
+
+    @Test
+    void testRoutingDataSource() {
+        assertInstanceOf(ReadWriteDataSource.class, dataSource);
+    }
+
+    @Test
+    void testReadsGoToReplicasInTurn() {
+        var usernames = new HashSet<String>();
+
+        for (var i = 0; i < 2; i++) {
+            userDao.fetchListByQuery("select e from UserEntity e").forEach(user -> usernames.add(user.getUsername()));
+        }
+
+        assertEquals(Set.of("replica0", "replica1"), usernames);
+    }
+
+    @Test
+    void testWritesStayOnPrimary() throws Exception {
+        var user = new UserEntity();
+        user.setUsername("primary");
+        user.setEmail("primary@mail");
+
+        userDao.insert(user);
+
+        //the read-only lookup is served by a replica, which doesn't have the row
+        assertNull(userDao.findById(user.getId()));
+        //joining a read-write transaction keeps the lookup on the primary
+        assertNotNull(transactionTemplate.execute(status -> userDao.findById(user.getId())));
+    }
+
+    private static void createReplica(String url, String username) throws SQLException {
+        try (var connection = DriverManager.getConnection(url, "test", "test");
+             var statement = connection.createStatement()) {
+            statement.execute("create table if not exists USERS (USER_ID integer primary key, USERNAME varchar(255), EMAIL varchar(255))");
+            statement.execute("merge into USERS values (-1, '" + username + "', '" + username + "@mail')");
+        }
+    }
+}
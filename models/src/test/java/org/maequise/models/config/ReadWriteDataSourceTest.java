@@ -0,0 +1,62 @@
+package org.maequise.models.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadWriteDataSourceTest {
+    @Test
+    void testRoundRobinSelection() {
+        var replica0 = replica("replica-0", 0);
+        var replica1 = replica("replica-1", 0);
+
+        var dataSource = new ReadWriteDataSource(replica("primary", 0), List.of(replica0, replica1),
+                ReadWriteDataSource.ReplicaSelection.ROUND_ROBIN);
+
+        assertSame(replica0, dataSource.selectReplica());
+        assertSame(replica1, dataSource.selectReplica());
+        assertSame(replica0, dataSource.selectReplica());
+    }
+
+    @Test
+    void testLeastBusySelection() {
+        var busy = replica("replica-0", 5);
+        var idle = replica("replica-1", 1);
+
+        var dataSource = new ReadWriteDataSource(replica("primary", 0), List.of(busy, idle),
+                ReadWriteDataSource.ReplicaSelection.LEAST_BUSY);
+
+        assertSame(idle, dataSource.selectReplica());
+    }
+
+    @Test
+    void testReplicaRequired() {
+        var primary = replica("primary", 0);
+        var noReplicas = List.<HikariDataSource>of();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReadWriteDataSource(primary, noReplicas, ReadWriteDataSource.ReplicaSelection.ROUND_ROBIN));
+    }
+
+    @Test
+    void testSelectionParsing() {
+        assertEquals(ReadWriteDataSource.ReplicaSelection.LEAST_BUSY, ReadWriteDataSource.ReplicaSelection.of("least-busy"));
+        assertEquals(ReadWriteDataSource.ReplicaSelection.ROUND_ROBIN, ReadWriteDataSource.ReplicaSelection.of("ROUND_ROBIN"));
+    }
+
+    private static HikariDataSource replica(String poolName, int activeConnections) {
+        var dataSource = mock(HikariDataSource.class);
+        var pool = mock(HikariPoolMXBean.class);
+
+        lenient().when(dataSource.getPoolName()).thenReturn(poolName);
+        lenient().when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        lenient().when(pool.getActiveConnections()).thenReturn(activeConnections);
+
+        return dataSource;
+    }
+}
@@ -0,0 +1,54 @@
+package org.maequise.models.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShardedDataSourceTest {
+    @Test
+    void testRouteToCurrentShard() throws Exception {
+        var shard0 = shard();
+        var shard1 = shard();
+
+        var dataSource = new ShardedDataSource(List.of(shard0, shard1));
+
+        assertEquals(2, dataSource.shardCount());
+        assertSame(shard0.getConnection(), dataSource.getConnection());
+        assertSame(shard1.getConnection(), ShardedDataSource.onShard(1, dataSource::getConnection));
+        assertEquals(List.of(shard0, shard1), ConnectionPools.of(dataSource));
+    }
+
+    @Test
+    void testShardRestoredAfterCall() {
+        var nested = ShardedDataSource.onShard(1, () -> ShardedDataSource.onShard(2, ShardedDataSource::currentShard)
+                + ShardedDataSource.currentShard() * 10);
+
+        assertEquals(12, nested);
+        assertEquals(ShardedDataSource.DEFAULT_SHARD, ShardedDataSource.currentShard());
+    }
+
+    @Test
+    void testUnknownShard() {
+        var dataSource = new ShardedDataSource(List.of(shard()));
+
+        assertThrows(IllegalStateException.class, () -> ShardedDataSource.onShard(3, dataSource::getConnection));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedDataSource(List.of()));
+    }
+
+    private static HikariDataSource shard() {
+        var dataSource = mock(HikariDataSource.class);
+
+        try {
+            when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        return dataSource;
+    }
+}
@@ -0,0 +1,37 @@
+package org.maequise.models.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.maequise.models.entities.generators.PooledSequenceGenerator;
+
+/**
+ * <p>Entity of the tests covering the optimistic locking, its generator keeps its own increment</p>
+ */
+@Entity
+@Table(name = "VERSIONED")
+@Data
+public class VersionedEntity {
+    @Id
+    @Column(name = "VERSIONED_ID")
+    @GeneratedValue(generator = "versioned_seq")
+    @GenericGenerator(name = "versioned_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "VERSIONED_SEQ"),
+                    @Parameter(name = OptimizableGenerator.INCREMENT_PARAM, value = "10")
+            })
+    private Integer id;
+
+    @Column(name = "NAME")
+    private String name;
+
+    @Column(name = "COUNTER")
+    private Integer counter;
+
+    @Version
+    @Column(name = "VERSION")
+    private Integer version;
+}
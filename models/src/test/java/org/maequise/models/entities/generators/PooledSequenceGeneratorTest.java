@@ -0,0 +1,73 @@
+package org.maequise.models.entities.generators;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.daos.UserDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//own database, the sequence of the shared one is already created with the default increment
+@SpringBootTest(properties = {"datasource.url=jdbc:h2:mem:pooled", "datasource.id.allocation-size=20"})
+@ActiveProfiles("test")
+class PooledSequenceGeneratorTest {
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void testSequenceIncrementedByAllocationSize() {
+        assertEquals(20L, sequenceIncrement("USERS_SEQ"));
+    }
+
+    @Test
+    void testIncrementDeclaredByEntityKept() {
+        assertEquals(10L, sequenceIncrement("VERSIONED_SEQ"));
+    }
+
+    @Test
+    void testOneSequenceCallPerBlock() throws Exception {
+        var before = nextSequenceValue();
+
+        var users = IntStream.range(0, 50).mapToObj(i -> {
+            var user = new UserEntity();
+            user.setUsername("pooled" + i);
+            user.setEmail("pooled" + i + "@mail");
+
+            return user;
+        }).toList();
+
+        userDao.insertAll(users);
+
+        var ids = users.stream().map(UserEntity::getId).distinct().sorted().toList();
+        var after = nextSequenceValue();
+
+        assertEquals(50, ids.size());
+        //50 identifiers need at most 3 blocks of 20, plus the 2 calls of the probes
+        assertTrue(after - before <= 5 * 20, () -> "sequence moved from " + before + " to " + after);
+    }
+
+    private long sequenceIncrement(String sequence) {
+        return transactionTemplate.execute(status -> ((Number) entityManager.createNativeQuery(
+                        "select INCREMENT from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_NAME = ?1")
+                .setParameter(1, sequence)
+                .getSingleResult()).longValue());
+    }
+
+    private long nextSequenceValue() {
+        return transactionTemplate.execute(status -> ((Number) entityManager.createNativeQuery("select next value for USERS_SEQ")
+                .getSingleResult()).longValue());
+    }
+}
@@ -1,7 +1,11 @@
 package org.maequise.models.jpa;
 
 import jakarta.persistence.*;
+import org.hibernate.MultiIdentifierLoadAccess;
 import org.hibernate.NonUniqueResultException;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,10 +15,16 @@ import org.maequise.commons.exceptions.UpdateException;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,6 +35,8 @@ import static org.mockito.Mockito.*;
 class AbstractJpaTest {
     @Mock
     private EntityManager entityManager;
+    @Mock
+    private PlatformTransactionManager transactionManager;
     private MockAbstractJpa jpaDao;
 
     @BeforeEach
@@ -33,6 +45,7 @@ class AbstractJpaTest {
 
         ReflectionTestUtils.setField(jpaDao, "entityManager", entityManager);
         ReflectionTestUtils.setField(jpaDao, "clazz", MockEntity.class);
+        ReflectionTestUtils.setField(jpaDao, "transactionManager", transactionManager);
     }
 
     @Test
@@ -62,6 +75,42 @@ class AbstractJpaTest {
         assertThrows(InsertException.class, () -> jpaDao.insert(new MockEntity()));
     }
 
+    @Test
+    void testInsertAll() throws Exception {
+        ReflectionTestUtils.setField(jpaDao, "batchSize", 2);
+
+        var entities = Stream.of(1, 2, 3, 4, 5)
+                .map(i -> createMockEntity(null, "entity " + i))
+                .toList();
+
+        var batchCounts = jpaDao.insertAll(entities);
+
+        verify(entityManager, times(5)).persist(any());
+        verify(entityManager, times(3)).flush();
+        entities.forEach(entity -> verify(entityManager).detach(entity));
+        verify(entityManager, never()).clear();
+
+        assertEquals(List.of(2, 2, 1), batchCounts);
+    }
+
+    @Test
+    void testInsertAllEmpty() throws Exception {
+        var batchCounts = jpaDao.insertAll(Stream.empty());
+
+        verify(entityManager, never()).flush();
+
+        assertTrue(batchCounts.isEmpty());
+    }
+
+    @Test
+    void testInsertAllError() {
+        doThrow(new PersistenceException("Error !")).when(entityManager).persist(any());
+
+        var entities = List.of(new MockEntity());
+
+        assertThrows(InsertException.class, () -> jpaDao.insertAll(entities));
+    }
+
     @Test
     void testUpdate() throws Exception {
         var entityToUpdate = new MockEntity();
@@ -133,6 +182,88 @@ class AbstractJpaTest {
         assertNotNull(captorOfPersist.getValue());
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    void testUpdateAll() throws Exception {
+        ReflectionTestUtils.setField(jpaDao, "batchSize", 2);
+        var session = mockSession();
+
+        var entities = Stream.of(1, 2, 3, 4, 5)
+                .map(i -> createMockEntity(i, "entity " + i))
+                .toList();
+
+        assertEquals(5, jpaDao.updateAll(entities));
+
+        verify(session, times(5)).update(any());
+        verify(session, never()).evict(any());
+        verify(entityManager, never()).merge(any());
+        verify(entityManager, times(3)).flush();
+        entities.forEach(entity -> verify(entityManager).detach(entity));
+        verify(entityManager, never()).clear();
+    }
+
+    @Test
+    void testUpdateAllWithoutId() {
+        mockSession();
+
+        var entities = List.of(createMockEntity(null, "new"));
+
+        assertThrows(UpdateException.class, () -> jpaDao.updateAll(entities));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testUpdateAllError() {
+        var session = mockSession();
+        doThrow(new OptimisticLockException("Error !")).when(entityManager).flush();
+
+        var entities = List.of(createMockEntity(1, "stale"));
+
+        assertThrows(UpdateException.class, () -> jpaDao.updateAll(entities));
+        verify(session).update(any());
+    }
+
+    @Test
+    void testUpdateFields() throws Exception {
+        mockSession();
+        var query = mock(Query.class);
+        var captorJpql = ArgumentCaptor.forClass(String.class);
+
+        when(entityManager.createQuery(captorJpql.capture())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(1);
+
+        assertTrue(jpaDao.updateFields(1, Map.of("anyProp", "new value")));
+
+        assertEquals("update MockEntity e set e.anyProp = :p0 where e.id = :id", captorJpql.getValue());
+        verify(query).setParameter("p0", "new value");
+        verify(query).setParameter("id", 1);
+    }
+
+    @Test
+    void testUpdateFieldsNotFound() throws Exception {
+        mockSession();
+        var query = mock(Query.class);
+
+        when(entityManager.createQuery(anyString())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(0);
+
+        assertFalse(jpaDao.updateFields(1, Map.of("anyProp", "new value")));
+    }
+
+    @Test
+    void testUpdateFieldsInvalidAttributes() {
+        var id = Map.<String, Object>of("id", 2);
+        var injection = Map.<String, Object>of("anyProp = null, e.id", 2);
+        var empty = Map.<String, Object>of();
+        var fields = Map.<String, Object>of("anyProp", "value");
+
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.updateFields(1, id));
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.updateFields(1, injection));
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.updateFields(1, empty));
+        //MockEntity has no version to check
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.updateFields(1, 3, fields));
+    }
+
     @Test
     void testDeleteEntity() throws Exception {
         doNothing().when(entityManager).remove(any());
@@ -160,6 +291,97 @@ class AbstractJpaTest {
         assertThrows(DeleteException.class, () -> jpaDao.delete(createMockEntity(1, "test")));
     }
 
+    @Test
+    void testDeleteById() throws Exception {
+        mockSession();
+        var query = mock(Query.class);
+
+        when(entityManager.createQuery("delete from MockEntity e where e.id in :ids")).thenReturn(query);
+        when(query.setParameter(eq("ids"), any())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(1, 0);
+
+        assertTrue(jpaDao.deleteById(1));
+        assertFalse(jpaDao.deleteById(2));
+        verify(query).setParameter("ids", List.of(1));
+        verify(entityManager, never()).merge(any());
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.deleteById(null));
+    }
+
+    @Test
+    void testDeleteAllByIdInChunks() throws Exception {
+        ReflectionTestUtils.setField(jpaDao, "maxInParameters", 2);
+        var session = mockSession();
+        var query = mock(Query.class);
+
+        when(entityManager.createQuery(anyString())).thenReturn(query);
+        when(query.setParameter(eq("ids"), any())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(2, 2, 1);
+
+        assertEquals(5, jpaDao.deleteAllById(List.of(1, 2, 3, 3, 4, 5)));
+
+        verify(query).setParameter("ids", List.of(1, 2));
+        verify(query).setParameter("ids", List.of(3, 4));
+        verify(query).setParameter("ids", List.of(5));
+        verify((SessionImplementor) session, times(5)).generateEntityKey(any(), any());
+    }
+
+    @Test
+    void testDeleteAllByIdError() {
+        mockSession();
+        var query = mock(Query.class);
+
+        when(entityManager.createQuery(anyString())).thenReturn(query);
+        when(query.setParameter(eq("ids"), any())).thenReturn(query);
+        when(query.executeUpdate()).thenThrow(new PersistenceException("Error"));
+
+        var ids = List.of(1, 2);
+
+        assertThrows(DeleteException.class, () -> jpaDao.deleteAllById(ids));
+    }
+
+    @Test
+    void testFindAllById() {
+        ReflectionTestUtils.setField(jpaDao, "maxInParameters", 2);
+        var session = mockSession();
+        var multiLoad = mock(MultiIdentifierLoadAccess.class, RETURNS_SELF);
+        var entity = createMockEntity(1, "found");
+
+        when(session.byMultipleIds(MockEntity.class)).thenReturn(multiLoad);
+        when(multiLoad.multiLoad(List.of(1, 3, 2))).thenReturn(Arrays.asList(entity, null, entity));
+
+        assertEquals(Arrays.asList(entity, null, entity), jpaDao.findAllById(List.of(1, 3, 2)));
+        verify(multiLoad).enableSessionCheck(true);
+        verify(multiLoad).enableOrderedReturn(true);
+        verify(multiLoad).withBatchSize(2);
+        assertTrue(jpaDao.findAllById(List.of()).isEmpty());
+    }
+
+    @Test
+    void testExistsById() {
+        var query = mock(TypedQuery.class);
+
+        when(entityManager.createQuery("select 1 from MockEntity e where e.id = ?1", Integer.class)).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(1), List.of());
+
+        assertTrue(jpaDao.existsById(1));
+        assertFalse(jpaDao.existsById(2));
+        verify(query, times(2)).setMaxResults(1);
+        verify(entityManager, never()).find(any(), any());
+    }
+
+    @Test
+    void testCount() {
+        var query = mock(TypedQuery.class);
+
+        when(entityManager.createQuery("select count(*) from MockEntity e", Long.class)).thenReturn(query);
+        when(entityManager.createQuery("select count(*) from MockEntity e where e.anyProp = :prop", Long.class)).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(5L, 2L);
+
+        assertEquals(5, jpaDao.count());
+        assertEquals(2, jpaDao.count("e.anyProp = :prop", Map.of("prop", "value")));
+        verify(query).setParameter("prop", "value");
+    }
+
     @Test
     void testFindEntity() throws Exception {
         var entityToFind = createMockEntity(1, "found");
@@ -533,6 +755,61 @@ class AbstractJpaTest {
         assertEquals(MockEntity.class, captorQueryTyped.getValue());
     }
 
+    @Test
+    void testFetchOptional() {
+        var entity = createMockEntity(1, "test");
+
+        var query = mock(TypedQuery.class);
+
+        when(entityManager.createQuery(anyString(), any()))
+                .thenReturn(query);
+        when(query.setMaxResults(2))
+                .thenReturn(query);
+        when(query.getResultList())
+                .thenReturn(List.of(entity), List.of());
+
+        var jpql = "select e from MockEntity e where e.anyProp=?1";
+
+        assertEquals(entity, jpaDao.fetchOptional(jpql, "test").orElseThrow());
+        assertTrue(jpaDao.fetchOptional(jpql, "missing").isEmpty());
+
+        verify(query).setParameter(1, "test");
+        verify(query).setParameter(1, "missing");
+        verify(query, never()).getSingleResult();
+    }
+
+    @Test
+    void testFetchFirstByQuery() {
+        var entities = List.of(createMockEntity(1, "test"), createMockEntity(2, "test"));
+
+        var query = mock(TypedQuery.class);
+
+        when(entityManager.createQuery(anyString(), any()))
+                .thenReturn(query);
+        when(query.setMaxResults(2))
+                .thenReturn(query);
+        when(query.getResultList())
+                .thenReturn(entities);
+
+        assertEquals(entities, jpaDao.fetchFirstByQuery("select e from MockEntity e order by e.id", 2));
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.fetchFirstByQuery("select e from MockEntity e", 0));
+    }
+
+    @Test
+    void testFetchOptionalNonUnique() {
+        var query = mock(TypedQuery.class);
+
+        when(entityManager.createQuery(anyString(), any()))
+                .thenReturn(query);
+        when(query.setMaxResults(2))
+                .thenReturn(query);
+        when(query.getResultList())
+                .thenReturn(List.of(createMockEntity(1, "test"), createMockEntity(2, "test")));
+
+        assertThrows(IncorrectResultSizeDataAccessException.class,
+                () -> jpaDao.fetchOptional("select e from MockEntity e where e.anyProp=?1", "test"));
+    }
+
     @Test
     void testFetchByQueryListWithParams() throws Exception {
         var entities = new ArrayList<MockEntity>();
@@ -658,6 +935,209 @@ class AbstractJpaTest {
         assertEquals(MockEntity.class, captorQueryTyped.getValue());
     }
 
+    @Test
+    void testFetchStreamByQueryDetachesRows() {
+        var first = createMockEntity(1, "first");
+        var second = createMockEntity(2, "second");
+
+        var query = mock(TypedQuery.class);
+
+        when(query.getResultStream())
+                .thenReturn(Stream.of(first, second));
+
+        when(entityManager.createQuery(anyString(), any()))
+                .thenReturn(query);
+
+        try (var results = jpaDao.fetchStreamByQuery("select e from MockEntity e")) {
+            assertEquals(List.of(first, second), results.toList());
+        }
+
+        verify(query).setHint("org.hibernate.fetchSize", 500);
+        verify(query).setHint("org.hibernate.readOnly", true);
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void testFetchStreamByQueryWithPositionalParams() {
+        var query = mock(TypedQuery.class);
+
+        when(query.getResultStream())
+                .thenReturn(Stream.of(createMockEntity(1, "test")));
+
+        when(entityManager.createQuery(anyString(), any()))
+                .thenReturn(query);
+
+        try (var results = jpaDao.fetchStreamByQueryWithPositionalParams("select e from MockEntity e where e.anyProp = ?1", "test")) {
+            assertEquals(1, results.count());
+        }
+
+        verify(query).setParameter(1, "test");
+    }
+
+    @Test
+    void testFetchStreamByQueryWithNamedParams() {
+        var query = mock(TypedQuery.class);
+
+        when(query.getResultStream())
+                .thenReturn(Stream.empty());
+
+        when(entityManager.createQuery(anyString(), any()))
+                .thenReturn(query);
+
+        try (var results = jpaDao.fetchStreamByQueryWithNamedParams("select e from MockEntity e where e.anyProp = :param", Collections.singletonMap("param", "test"))) {
+            assertEquals(0, results.count());
+        }
+
+        verify(query).setParameter("param", "test");
+        verify(entityManager, never()).detach(any());
+    }
+
+    @Test
+    void testFetchFirstPage() {
+        var query = mock(TypedQuery.class);
+
+        when(query.getResultList())
+                .thenReturn(List.of(
+                        new Object[]{createMockEntity(1, "a"), 1},
+                        new Object[]{createMockEntity(2, "b"), 2},
+                        new Object[]{createMockEntity(3, "c"), 3}));
+
+        when(entityManager.createQuery(anyString(), any()))
+                .thenReturn(query);
+
+        var captorQuery = ArgumentCaptor.forClass(String.class);
+
+        var page = jpaDao.fetchPage(null, 2);
+
+        verify(entityManager).createQuery(captorQuery.capture(), eq(Object[].class));
+        verify(query).setMaxResults(3);
+        verify(query, never()).setParameter(anyString(), any());
+
+        assertEquals("select e, e.id from MockEntity e order by e.id", captorQuery.getValue());
+        assertEquals(2, page.content().size());
+        assertEquals(2, page.nextCursor());
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    void testFetchLastPage() {
+        var query = mock(TypedQuery.class);
+
+        when(query.getResultList())
+                .thenReturn(Collections.singletonList(new Object[]{createMockEntity(5, "e"), "e", 5}));
+
+        when(entityManager.createQuery(anyString(), any()))
+                .thenReturn(query);
+
+        var captorQuery = ArgumentCaptor.forClass(String.class);
+
+        var page = jpaDao.fetchPage("anyProp", new KeysetPage.Cursor("d", 4), 2);
+
+        verify(entityManager).createQuery(captorQuery.capture(), eq(Object[].class));
+        verify(query).setParameter("lastKey", "d");
+        verify(query).setParameter("lastId", 4);
+
+        assertEquals("select e, e.anyProp, e.id from MockEntity e where e.anyProp > :lastKey or (e.anyProp = :lastKey and e.id > :lastId)"
+                + " order by e.anyProp, e.id", captorQuery.getValue());
+        assertEquals(1, page.content().size());
+        assertNull(page.nextCursor());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testFetchPageInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.fetchPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.fetchPage("id; delete from MockEntity", null, 10));
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.fetchPage("anyProp", "d", 10));
+        assertThrows(IllegalArgumentException.class, () -> jpaDao.fetchPage(new KeysetPage.Cursor(4, 4), 10));
+    }
+
+    @Test
+    void testFetchPageFailure() {
+        var query = mock(TypedQuery.class);
+
+        when(query.getResultList())
+                .thenThrow(new PersistenceException("connection lost"));
+
+        when(entityManager.createQuery(anyString(), any()))
+                .thenReturn(query);
+
+        assertThrows(DataRetrievalFailureException.class, () -> jpaDao.fetchPage(2, 10));
+    }
+
+    @Test
+    void testFetchByNamedQueryWithPositionalParams() {
+        var query = mock(TypedQuery.class);
+
+        when(query.getSingleResult())
+                .thenReturn(createMockEntity(1, "test"));
+
+        when(entityManager.createNamedQuery(anyString(), any()))
+                .thenReturn(query);
+
+        var result = jpaDao.fetchByNamedQuery("byProp", "test");
+
+        verify(entityManager).createNamedQuery("MockEntity.byProp", MockEntity.class);
+        verify(query).setParameter(1, "test");
+
+        assertNotNull(result);
+    }
+
+    @Test
+    void testFetchListByNamedQueryWithNamedParams() {
+        var query = mock(TypedQuery.class);
+
+        when(query.getResultList())
+                .thenReturn(List.of(createMockEntity(1, "test")));
+
+        when(entityManager.createNamedQuery(anyString(), any()))
+                .thenReturn(query);
+
+        var results = jpaDao.fetchListByNamedQuery("byProp", Collections.singletonMap("param", "test"));
+
+        verify(entityManager).createNamedQuery("MockEntity.byProp", MockEntity.class);
+        verify(query).setParameter("param", "test");
+
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    void testFetchListByUnknownNamedQuery() {
+        when(entityManager.createNamedQuery(anyString(), any()))
+                .thenThrow(new IllegalArgumentException("Unknown query"));
+
+        assertTrue(jpaDao.fetchListByNamedQuery("unknown").isEmpty());
+        assertNull(jpaDao.fetchByNamedQuery("unknown"));
+    }
+
+    @Test
+    void testRegisterInvalidQueryTemplate() {
+        var entityManagerFactory = mock(EntityManagerFactory.class);
+        var validationEntityManager = mock(EntityManager.class);
+
+        when(entityManager.getEntityManagerFactory())
+                .thenReturn(entityManagerFactory);
+        when(entityManagerFactory.createEntityManager())
+                .thenReturn(validationEntityManager);
+        when(validationEntityManager.createQuery(anyString(), any()))
+                .thenThrow(new IllegalArgumentException("Syntax error"));
+
+        var dao = new AbstractJpa<Integer, MockEntity>() {
+            @Override
+            protected Map<String, String> queryTemplates() {
+                return Map.of("invalid", "select from");
+            }
+        };
+
+        ReflectionTestUtils.setField(dao, "entityManager", entityManager);
+        ReflectionTestUtils.setField(dao, "clazz", MockEntity.class);
+
+        assertThrows(IllegalStateException.class, dao::registerQueryTemplates);
+        verify(validationEntityManager).close();
+        verify(entityManagerFactory, never()).addNamedQuery(anyString(), any());
+    }
+
     @Test
     void testDeleteAllEntities() {
         var query = mock(Query.class);
@@ -679,6 +1159,76 @@ class AbstractJpaTest {
         assertEquals("delete from MockEntity e", captorQuery.getValue());
     }
 
+    @Test
+    void testDeleteAllInChunks() throws Exception {
+        var selectIds = mock(TypedQuery.class);
+        var delete = mock(Query.class);
+
+        when(entityManager.createQuery(anyString(), eq(Object.class)))
+                .thenReturn(selectIds);
+        when(selectIds.getResultList())
+                .thenReturn(List.of(1, 2), List.of(3), Collections.emptyList());
+        when(entityManager.createQuery(anyString()))
+                .thenReturn(delete);
+        when(delete.executeUpdate())
+                .thenReturn(2, 1);
+
+        var captorSelect = ArgumentCaptor.forClass(String.class);
+        var progress = new ArrayList<Long>();
+
+        var totalDeleted = jpaDao.deleteAllInChunks(PurgeOptions.builder()
+                .chunkSize(2)
+                .predicate("e.anyProp = :prop")
+                .params(Map.of("prop", "old"))
+                .progressListener(progress::add)
+                .build());
+
+        verify(entityManager, times(3)).createQuery(captorSelect.capture(), eq(Object.class));
+        verify(entityManager, times(2)).createQuery("delete from MockEntity e where e.id in :ids");
+        verify(selectIds, times(3)).setMaxResults(2);
+        verify(selectIds).setParameter("lastId", 2);
+        verify(selectIds).setParameter("lastId", 3);
+        verify(delete).setParameter("ids", List.of(1, 2));
+        verify(transactionManager, times(3)).commit(any());
+
+        assertEquals("select e.id from MockEntity e where (e.anyProp = :prop) order by e.id", captorSelect.getAllValues().get(0));
+        assertEquals("select e.id from MockEntity e where e.id > :lastId and (e.anyProp = :prop) order by e.id", captorSelect.getAllValues().get(1));
+        assertEquals(3, totalDeleted);
+        assertEquals(List.of(2L, 3L), progress);
+    }
+
+    @Test
+    void testDeleteAllInChunksCancelled() throws Exception {
+        var totalDeleted = jpaDao.deleteAllInChunks(PurgeOptions.builder()
+                .cancellation(() -> true)
+                .build());
+
+        verify(entityManager, never()).createQuery(anyString(), any());
+
+        assertEquals(0, totalDeleted);
+    }
+
+    @Test
+    void testDeleteAllInChunksError() {
+        when(entityManager.createQuery(anyString(), eq(Object.class)))
+                .thenThrow(new PersistenceException("Error"));
+
+        var options = PurgeOptions.builder().build();
+
+        assertThrows(DeleteException.class, () -> jpaDao.deleteAllInChunks(options));
+        verify(transactionManager).rollback(any());
+    }
+
+    private Session mockSession() {
+        var session = mock(SessionImplementor.class, RETURNS_DEEP_STUBS);
+
+        lenient().when(entityManager.unwrap(Session.class)).thenReturn(session);
+        lenient().when(entityManager.unwrap(SessionImplementor.class)).thenReturn(session);
+        lenient().when(session.getPersistenceContextInternal().getEntity(any(EntityKey.class))).thenReturn(null);
+
+        return session;
+    }
+
     private MockEntity createMockEntity(Integer id, String prop){
         var entity = new MockEntity();
 
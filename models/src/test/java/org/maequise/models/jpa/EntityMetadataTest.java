@@ -0,0 +1,127 @@
+package org.maequise.models.jpa;
+
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.junit.jupiter.api.Test;
+import org.maequise.commons.exceptions.UnknownIdException;
+import org.maequise.models.entities.UserEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.maequise.models.jpa.MockAbstractJpa.MockEntity;
+
+class EntityMetadataTest {
+    @Test
+    void testIdFromFieldWithGetter() {
+        var entity = new MockEntity();
+        entity.setId(42);
+
+        var metadata = EntityMetadata.of(MockEntity.class);
+
+        assertEquals("id", metadata.getIdAttribute());
+        assertEquals(Integer.class, metadata.getIdType());
+        assertEquals(42, metadata.getId(entity));
+    }
+
+    @Test
+    void testIdOfTransientEntityIsNull() {
+        assertNull(EntityMetadata.of(UserEntity.class).getId(new UserEntity()));
+    }
+
+    @Test
+    void testMetadataIsCachedPerClass() {
+        assertSame(EntityMetadata.of(MockEntity.class), EntityMetadata.of(MockEntity.class));
+    }
+
+    @Test
+    void testInheritedId() {
+        var entity = new InheritedIdEntity();
+        entity.setId(7L);
+
+        var metadata = EntityMetadata.of(InheritedIdEntity.class);
+
+        assertEquals("id", metadata.getIdAttribute());
+        assertEquals(7L, metadata.getId(entity));
+    }
+
+    @Test
+    void testIdWithoutGetter() {
+        var metadata = EntityMetadata.of(FieldAccessEntity.class);
+
+        assertEquals("code", metadata.getIdAttribute());
+        assertEquals("A1", metadata.getId(new FieldAccessEntity("A1")));
+    }
+
+    @Test
+    void testIdOnGetter() {
+        var metadata = EntityMetadata.of(PropertyAccessEntity.class);
+
+        assertEquals("key", metadata.getIdAttribute());
+        assertEquals(Long.class, metadata.getIdType());
+        assertEquals(3L, metadata.getId(new PropertyAccessEntity()));
+    }
+
+    @Test
+    void testVersionAttribute() {
+        assertEquals("revision", EntityMetadata.of(VersionedEntity.class).getVersionAttribute());
+        assertNull(EntityMetadata.of(FieldAccessEntity.class).getVersionAttribute());
+    }
+
+    @Test
+    void testReadAndWriteVersion() {
+        var entity = new VersionedEntity();
+        entity.setRevision(3);
+
+        var metadata = EntityMetadata.of(VersionedEntity.class);
+
+        assertEquals(3, metadata.getVersion(entity));
+
+        metadata.setVersion(entity, 2);
+
+        assertEquals(2, entity.getRevision());
+        assertThrows(IllegalStateException.class, () -> EntityMetadata.of(FieldAccessEntity.class).getVersion(new FieldAccessEntity("A1")));
+    }
+
+    @Test
+    void testNoIdDefined() {
+        assertThrows(UnknownIdException.class, () -> EntityMetadata.of(String.class));
+    }
+
+    @Data
+    @MappedSuperclass
+    static class BaseEntity {
+        @Id
+        private Long id;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    static class InheritedIdEntity extends BaseEntity {
+        private String name;
+    }
+
+    static class FieldAccessEntity {
+        @Id
+        private final String code;
+
+        FieldAccessEntity(String code) {
+            this.code = code;
+        }
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    static class VersionedEntity extends BaseEntity {
+        @Version
+        private Integer revision;
+    }
+
+    static class PropertyAccessEntity {
+        @Id
+        public Long getKey() {
+            return 3L;
+        }
+    }
+}
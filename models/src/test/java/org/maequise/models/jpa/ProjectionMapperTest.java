@@ -0,0 +1,94 @@
+package org.maequise.models.jpa;
+
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProjectionMapperTest {
+    @Test
+    void testRecordByAlias() {
+        var tuple = tuple(List.of("email", "username"), "user@mail", "user");
+
+        assertEquals(new Login("user", "user@mail"), ProjectionMapper.of(Login.class).rowMapper().apply(tuple));
+    }
+
+    @Test
+    void testRecordByPosition() {
+        var tuple = tuple(Arrays.asList(null, null), "user", "user@mail");
+
+        assertEquals(new Login("user", "user@mail"), ProjectionMapper.of(Login.class).rowMapper().apply(tuple));
+    }
+
+    @Test
+    void testInterfaceByAlias() {
+        var mapper = ProjectionMapper.of(Summary.class).rowMapper();
+        var summary = mapper.apply(tuple(List.of("active", "username"), true, "user"));
+
+        assertEquals("user", summary.getUsername());
+        assertTrue(summary.isActive());
+        assertEquals("USER", summary.upperName());
+        assertEquals(summary, ProjectionMapper.of(Summary.class).rowMapper().apply(tuple(List.of("active", "username"), true, "user")));
+    }
+
+    @Test
+    void testInterfaceWithoutAlias() {
+        var mapper = ProjectionMapper.of(Summary.class).rowMapper();
+        var tuple = tuple(List.of("username"), "user");
+
+        assertThrows(IllegalArgumentException.class, () -> mapper.apply(tuple));
+    }
+
+    @Test
+    void testValuesNotMatchingTheRecord() {
+        var mapper = ProjectionMapper.of(Login.class).rowMapper();
+        var tuple = tuple(List.of("username", "email"), 42, "user@mail");
+
+        assertThrows(IllegalArgumentException.class, () -> mapper.apply(tuple));
+    }
+
+    @Test
+    void testMapperIsCachedPerType() {
+        assertSame(ProjectionMapper.of(Login.class), ProjectionMapper.of(Login.class));
+    }
+
+    @Test
+    void testInvalidProjectionType() {
+        assertThrows(IllegalArgumentException.class, () -> ProjectionMapper.of(String.class));
+    }
+
+    private Tuple tuple(List<String> aliases, Object... values) {
+        var tuple = mock(Tuple.class);
+        var elements = aliases.stream().<TupleElement<?>>map(alias -> {
+            TupleElement<?> element = mock(TupleElement.class);
+            when(element.getAlias()).thenReturn(alias);
+
+            return element;
+        }).toList();
+
+        when(tuple.getElements()).thenReturn(elements);
+        for (var i = 0; i < values.length; i++) {
+            lenient().when(tuple.get(i)).thenReturn(values[i]);
+        }
+
+        return tuple;
+    }
+
+    record Login(String username, String email) {
+    }
+
+    interface Summary {
+        String getUsername();
+
+        boolean isActive();
+
+        default String upperName() {
+            return getUsername().toUpperCase();
+        }
+    }
+}
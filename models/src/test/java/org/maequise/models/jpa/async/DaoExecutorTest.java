@@ -0,0 +1,134 @@
+package org.maequise.models.jpa.async;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.maequise.commons.exceptions.InsertException;
+import org.maequise.models.config.ShardedDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DaoExecutorTest {
+    private DaoExecutor daoExecutor;
+
+    @AfterEach
+    void shutdown() throws Exception {
+        if (daoExecutor != null) {
+            daoExecutor.destroy();
+        }
+    }
+
+    @Test
+    void testMaxConcurrencyFromPoolSize() throws Exception {
+        var hikariDataSource = new HikariDataSource();
+        hikariDataSource.setMaximumPoolSize(7);
+
+        var dataSource = mock(DataSource.class);
+        when(dataSource.unwrap(HikariDataSource.class))
+                .thenReturn(hikariDataSource);
+
+        this.daoExecutor = new DaoExecutor(dataSource, 0);
+
+        assertEquals(7, daoExecutor.getMaxConcurrency());
+    }
+
+    @Test
+    void testMaxConcurrencyFromAllShards() {
+        var shards = IntStream.of(3, 4).mapToObj(size -> {
+            var pool = new HikariDataSource();
+            pool.setMaximumPoolSize(size);
+
+            return pool;
+        }).toList();
+
+        this.daoExecutor = new DaoExecutor(new ShardedDataSource(shards), 0);
+
+        assertEquals(7, daoExecutor.getMaxConcurrency());
+    }
+
+    @Test
+    void testMaxConcurrencyWithoutPool() throws Exception {
+        var dataSource = mock(DataSource.class);
+        when(dataSource.unwrap(HikariDataSource.class))
+                .thenThrow(new SQLException("not a wrapper"));
+
+        this.daoExecutor = new DaoExecutor(dataSource, 0);
+
+        assertEquals(10, daoExecutor.getMaxConcurrency());
+    }
+
+    @Test
+    void testExplicitMaxConcurrency() throws Exception {
+        var dataSource = mock(DataSource.class);
+
+        this.daoExecutor = new DaoExecutor(dataSource, 3);
+
+        assertEquals(3, daoExecutor.getMaxConcurrency());
+        verifyNoInteractions(dataSource);
+    }
+
+    @Test
+    void testConcurrencyLimited() {
+        this.daoExecutor = new DaoExecutor(2);
+
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+
+        var futures = IntStream.range(0, 20)
+                .mapToObj(i -> daoExecutor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(10);
+                    running.decrementAndGet();
+
+                    return i;
+                }))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).join();
+
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void testNestedCallRunsInline() {
+        this.daoExecutor = new DaoExecutor(1);
+
+        //the nested call would wait forever for the only permit, held by its caller
+        var result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> daoExecutor.submit(() -> {
+            var caller = Thread.currentThread();
+
+            return daoExecutor.submit(() -> Thread.currentThread() == caller).join();
+        }).join());
+
+        assertTrue(result);
+    }
+
+    @Test
+    void testRunsOnVirtualThreads() {
+        this.daoExecutor = new DaoExecutor(1);
+
+        assertTrue(daoExecutor.submit(() -> Thread.currentThread().isVirtual()).join());
+    }
+
+    @Test
+    void testErrorPropagated() {
+        this.daoExecutor = new DaoExecutor(1);
+
+        var future = daoExecutor.submit(() -> {
+            throw new InsertException("Error !");
+        });
+
+        var error = assertThrows(CompletionException.class, future::join);
+
+        assertInstanceOf(InsertException.class, error.getCause());
+    }
+}
@@ -0,0 +1,69 @@
+package org.maequise.models.jpa.daos;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.maequise.models.entities.UserEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AsyncUserDaoTest {
+    @Autowired
+    private AsyncUserDao asyncUserDao;
+
+    @BeforeEach
+    void init() {
+        asyncUserDao.deleteAll().join();
+    }
+
+    @Test
+    void testFanOutInserts() {
+        var inserts = IntStream.range(0, 50)
+                .mapToObj(i -> asyncUserDao.insert(createUserEntity("user" + i)))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(inserts).join();
+
+        assertEquals(50, asyncUserDao.fetchListByQuery("select e from UserEntity e").join().size());
+    }
+
+    @Test
+    void testFindById() {
+        var user = asyncUserDao.insert(createUserEntity("async")).join();
+
+        var found = asyncUserDao.findById(user.getId())
+                .thenApply(UserEntity::getUsername)
+                .join();
+
+        assertEquals("async", found);
+    }
+
+    @Test
+    void testFetchByPositionalParams() {
+        asyncUserDao.insert(createUserEntity("positional")).join();
+
+        var found = asyncUserDao.fetchListByQueryWithPositionalParams("select e from UserEntity e where e.username = ?1", "positional")
+                .join();
+
+        assertEquals(1, found.size());
+        assertEquals("positional", asyncUserDao.fetchByQueryWithPositionalParams("select e from UserEntity e where e.username = ?1", "positional")
+                .join()
+                .getUsername());
+    }
+
+    private UserEntity createUserEntity(String name) {
+        var user = new UserEntity();
+
+        user.setUsername(name);
+        user.setEmail(name + "@mail");
+
+        return user;
+    }
+}
@@ -0,0 +1,168 @@
+package org.maequise.models.jpa.daos;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.maequise.models.config.ShardedDataSource;
+import org.maequise.models.entities.UserEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>The shards are distinct H2 databases, their rows are counted directly to check where the users were inserted</p>
+ */
+@SpringBootTest(properties = {
+        "datasource.url=" + ShardedUserDaoTest.SHARD_0,
+        "datasource.shards[0].url=" + ShardedUserDaoTest.SHARD_1,
+        "datasource.shards[1].url=" + ShardedUserDaoTest.SHARD_2
+})
+@ActiveProfiles("test")
+class ShardedUserDaoTest {
+    static final String SHARD_0 = "jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1 = "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1";
+    static final String SHARD_2 = "jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ShardedUserDao shardedUserDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void init() throws Exception {
+        for (var url : List.of(SHARD_0, SHARD_1, SHARD_2)) {
+            execute(url, "delete from USERS");
+        }
+    }
+
+    @Test
+    void testInsertSpreadsUsersByIdHash() throws Exception {
+        var users = IntStream.range(0, 30)
+                .mapToObj(i -> createUserEntity("user" + i))
+                .toList();
+
+        assertEquals(30, shardedUserDao.insertAll(users));
+
+        var counts = List.of(countRows(SHARD_0), countRows(SHARD_1), countRows(SHARD_2));
+
+        assertEquals(30, counts.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(counts.stream().allMatch(count -> count > 0));
+        assertEquals(30, shardedUserDao.count());
+
+        for (var user : users) {
+            assertEquals(user.getId() % 3, shardedUserDao.shardOf(user));
+            assertEquals(user.getUsername(), shardedUserDao.findById(user.getId()).getUsername());
+        }
+    }
+
+    @Test
+    void testUpdateAndDeleteOnTheShardOfTheUser() throws Exception {
+        var user = shardedUserDao.insert(createUserEntity("routed"));
+
+        user.setEmail("changed@mail");
+        shardedUserDao.update(user);
+
+        assertEquals("changed@mail", shardedUserDao.findById(user.getId()).getEmail());
+        assertTrue(shardedUserDao.deleteById(user.getId()));
+        assertNull(shardedUserDao.findById(user.getId()));
+        assertEquals(0, shardedUserDao.count());
+    }
+
+    @Test
+    void testUpdateOfMissingUserInsertsItWithItsId() throws Exception {
+        var user = createUserEntity("missing");
+        user.setId(1_000);
+
+        shardedUserDao.update(user);
+
+        assertEquals(1, countRows(SHARD_1));
+        assertEquals("missing", shardedUserDao.findById(1_000).getUsername());
+        assertEquals(1, shardedUserDao.count());
+    }
+
+    @Test
+    void testScatterGatherMergesOrderAndLimit() throws Exception {
+        shardedUserDao.insertAll(IntStream.range(0, 20)
+                .mapToObj(i -> createUserEntity("user" + (char) ('a' + i)))
+                .toList());
+
+        var all = shardedUserDao.fetchListByQueryWithParams("select e from UserEntity e where e.username like ?1", "user%");
+        var ordered = shardedUserDao.fetchListByQueryWithNamedParams("select e from UserEntity e where e.username < :max order by e.username",
+                Comparator.comparing(UserEntity::getUsername), Map.of("max", "usere"));
+        var first = shardedUserDao.fetchFirstByQuery("select e from UserEntity e order by e.username desc",
+                Comparator.comparing(UserEntity::getUsername).reversed(), 5);
+
+        assertEquals(20, all.size());
+        assertEquals(List.of("usera", "userb", "userc", "userd"), ordered.stream().map(UserEntity::getUsername).toList());
+        assertEquals(List.of("usert", "users", "userr", "userq", "userp"), first.stream().map(UserEntity::getUsername).toList());
+        assertEquals(10, shardedUserDao.count("e.username < ?1", "userk"));
+    }
+
+    @Test
+    void testOrderedQueryRequiresComparator() {
+        //the IllegalArgumentException is translated by the repository
+        assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> shardedUserDao.fetchListByQueryWithParams("select e from UserEntity e order by e.username"));
+        assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> shardedUserDao.fetchListByQueryWithNamedParams("select e from UserEntity e where e.username < :max ORDER  BY e.id",
+                        Map.of("max", "usere")));
+    }
+
+    @Test
+    void testTransactionBoundToItsShard() throws Exception {
+        var users = IntStream.range(0, 6)
+                .mapToObj(i -> createUserEntity("user" + i))
+                .toList();
+        shardedUserDao.insertAll(users);
+
+        var local = users.stream().filter(user -> shardedUserDao.shardOf(user) == 1).findFirst().orElseThrow();
+        var remote = users.stream().filter(user -> shardedUserDao.shardOf(user) != 1).findFirst().orElseThrow();
+
+        var found = ShardedDataSource.onShard(1, () -> transactionTemplate.execute(status -> {
+            //the transaction began on the shard 1, the other shards can't join it
+            assertThrows(IllegalTransactionStateException.class, () -> shardedUserDao.findById(remote.getId()));
+
+            return shardedUserDao.findById(local.getId());
+        }));
+
+        assertEquals(local.getUsername(), found.getUsername());
+    }
+
+    private static int countRows(String url) throws SQLException {
+        try (var connection = DriverManager.getConnection(url, "test", "test");
+             var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("select count(*) from USERS")) {
+            resultSet.next();
+
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (var connection = DriverManager.getConnection(url, "test", "test");
+             var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private UserEntity createUserEntity(String name) {
+        var user = new UserEntity();
+
+        user.setUsername(name);
+        user.setEmail(name + "@mail");
+
+        return user;
+    }
+}
@@ -1,11 +1,29 @@
 package org.maequise.models.jpa.daos;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.PurgeOptions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -15,6 +33,12 @@ class UserDaoTest {
     @Autowired
     private UserDao userDao;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @BeforeEach
     void init() {
         userDao.deleteAll();
@@ -35,6 +59,131 @@ class UserDaoTest {
         assertEquals("email", results.get(0).getEmail());
     }
 
+    @Test
+    void testInsertAllUsers() throws Exception {
+        var users = IntStream.range(0, 120)
+                .mapToObj(i -> createUserEntity("user" + i, "user" + i + "@mail"))
+                .toList();
+
+        var batchCounts = userDao.insertAll(users);
+
+        assertEquals(List.of(50, 50, 20), batchCounts);
+        assertEquals(120, userDao.fetchListByQuery("select e from UserEntity e").size());
+        assertTrue(users.stream().allMatch(u -> u.getId() != null));
+    }
+
+    @Test
+    void testInsertAllKeepsOtherEntitiesManaged() throws Exception {
+        var loaded = userDao.insert(createUserEntity("loaded", "loaded@mail"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            var managed = entityManager.find(UserEntity.class, loaded.getId());
+
+            try {
+                userDao.insertAll(List.of(createUserEntity("batch", "batch@mail")));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+
+            assertTrue(entityManager.contains(managed));
+            //still dirty checked at the commit
+            managed.setEmail("changed@mail");
+        });
+
+        assertEquals("changed@mail", userDao.findById(loaded.getId()).getEmail());
+    }
+
+    @Test
+    void testFetchAllPages() throws Exception {
+        userDao.insertAll(IntStream.range(0, 25)
+                .mapToObj(i -> createUserEntity("user" + i, "user" + i + "@mail")));
+
+        var fetched = new ArrayList<UserEntity>();
+        var page = userDao.fetchPage(null, 10);
+        var pages = 1;
+
+        fetched.addAll(page.content());
+
+        while (page.hasNext()) {
+            page = userDao.fetchPage(page.nextCursor(), 10);
+            fetched.addAll(page.content());
+            pages++;
+        }
+
+        assertEquals(3, pages);
+        assertEquals(25, fetched.size());
+        assertEquals(25, fetched.stream().map(UserEntity::getId).distinct().count());
+    }
+
+    @Test
+    void testFetchPagesWithDuplicateKeys() throws Exception {
+        //the usernames a and b each spread over two pages of 3
+        userDao.insertAll(Stream.of("a", "a", "a", "a", "b", "b", "b", "c")
+                .map(name -> createUserEntity(name, name + "@mail")));
+
+        var fetched = new ArrayList<UserEntity>();
+        var page = userDao.fetchPage("username", null, 3);
+
+        fetched.addAll(page.content());
+
+        while (page.hasNext()) {
+            page = userDao.fetchPage("username", page.nextCursor(), 3);
+            fetched.addAll(page.content());
+        }
+
+        assertEquals(8, fetched.size());
+        assertEquals(8, fetched.stream().map(UserEntity::getId).distinct().count());
+        assertEquals(List.of("a", "a", "a", "a", "b", "b", "b", "c"), fetched.stream().map(UserEntity::getUsername).toList());
+    }
+
+    @Test
+    void testFetchByNamedQuery() throws Exception {
+        userDao.insert(createUserEntity("named", "named@mail"));
+
+        var found = userDao.fetchByNamedQuery(UserDao.FIND_BY_USERNAME, Map.of("username", "named"));
+
+        assertNotNull(found);
+        assertEquals("named@mail", found.getEmail());
+        assertTrue(userDao.fetchListByNamedQuery(UserDao.FIND_BY_USERNAME, Map.of("username", "unknown")).isEmpty());
+    }
+
+    @Test
+    void testDeleteAllInChunks() throws Exception {
+        userDao.insertAll(IntStream.range(0, 30)
+                .mapToObj(i -> createUserEntity(i % 3 == 0 ? "inactive" : "active", "user" + i + "@mail")));
+
+        var progress = new ArrayList<Long>();
+
+        var totalDeleted = userDao.deleteAllInChunks(PurgeOptions.builder()
+                .chunkSize(4)
+                .predicate("e.username = :username")
+                .params(Map.of("username", "inactive"))
+                .progressListener(progress::add)
+                .build());
+
+        assertEquals(10, totalDeleted);
+        assertEquals(List.of(4L, 8L, 10L), progress);
+        assertEquals(20, userDao.fetchListByQuery("select e from UserEntity e").size());
+        assertTrue(userDao.fetchListByNamedQuery(UserDao.FIND_BY_USERNAME, Map.of("username", "inactive")).isEmpty());
+    }
+
+    @Test
+    void testDeleteAllInChunksCancelled() throws Exception {
+        userDao.insertAll(IntStream.range(0, 10)
+                .mapToObj(i -> createUserEntity("user" + i, "user" + i + "@mail")));
+
+        var chunks = new AtomicInteger();
+
+        var totalDeleted = userDao.deleteAllInChunks(PurgeOptions.builder()
+                .chunkSize(3)
+                .progressListener(deleted -> chunks.incrementAndGet())
+                .cancellation(() -> chunks.get() == 2)
+                .build());
+
+        assertEquals(6, totalDeleted);
+        assertEquals(4, userDao.fetchListByQuery("select e from UserEntity e").size());
+    }
+
     @Test
     void testUpdateUser() throws Exception {
         var userEntity = userDao.insert(createUserEntity("test", "mmailk"));
@@ -74,6 +223,173 @@ class UserDaoTest {
         assertEquals(1, total.size());
     }
 
+    @Test
+    void testStreamUsersKeepsPersistenceContextEmpty() {
+        var totalRows = 1_000_000;
+
+        transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery(
+                        "insert into USERS (USER_ID, USERNAME, EMAIL) select X, 'user' || X, 'user' || X || '@mail' from SYSTEM_RANGE(1, ?1)")
+                .setParameter(1, totalRows)
+                .executeUpdate());
+
+        var session = entityManager.unwrap(Session.class);
+        var maxManagedEntities = new AtomicInteger();
+
+        var streamed = transactionTemplate.execute(status -> {
+            try (var users = userDao.fetchStreamByQuery("select e from UserEntity e")) {
+                return users.peek(u -> maxManagedEntities.accumulateAndGet(session.getStatistics().getEntityCount(), Math::max))
+                        .count();
+            }
+        });
+
+        assertEquals(totalRows, streamed);
+        assertEquals(0, maxManagedEntities.get());
+    }
+
+    @Test
+    void testStreamUsersRequiresTransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> userDao.fetchStreamByQuery("select e from UserEntity e"));
+    }
+
+    @Test
+    void testExistsAndCount() throws Exception {
+        assertEquals(0, userDao.count());
+
+        var user = userDao.insert(createUserEntity("user", "user@mail"));
+        userDao.insertAll(IntStream.range(0, 4)
+                .mapToObj(i -> createUserEntity("other" + i, "other" + i + "@mail")));
+
+        assertTrue(userDao.existsById(user.getId()));
+        assertFalse(userDao.existsById(-1));
+        assertTrue(userDao.exists("e.username = ?1", "user"));
+        assertFalse(userDao.exists("e.username = :name", Map.of("name", "none")));
+        assertEquals(5, userDao.count());
+        assertEquals(4, userDao.count("e.username like ?1", "other%"));
+    }
+
+    @Test
+    void testFetchOptional() throws Exception {
+        userDao.insert(createUserEntity("user", "user@mail"));
+        userDao.insert(createUserEntity("twin", "twin1@mail"));
+        userDao.insert(createUserEntity("twin", "twin2@mail"));
+
+        var query = "select e from UserEntity e where e.username = ?1";
+
+        assertEquals("user@mail", userDao.fetchOptional(query, "user").orElseThrow().getEmail());
+        assertTrue(userDao.fetchOptional(query, "none").isEmpty());
+        assertTrue(userDao.fetchOptionalByNamedQuery(UserDao.FIND_BY_USERNAME, Map.of("username", "none")).isEmpty());
+        assertThrows(IncorrectResultSizeDataAccessException.class, () -> userDao.fetchOptional(query, "twin"));
+        assertEquals(new UserLogin("user", "user@mail"), userDao.fetchProjectionOptional(
+                "select e.username, e.email from UserEntity e where e.username = ?1", UserLogin.class, "user").orElseThrow());
+    }
+
+    @Test
+    void testReadOnlyEntitiesAreNotDirtyChecked() throws Exception {
+        userDao.insertAll(IntStream.range(0, 3)
+                .mapToObj(i -> createUserEntity("user" + i, "user" + i + "@mail")));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            var session = entityManager.unwrap(Session.class);
+            var users = userDao.readOnly().fetchListByQuery("select e from UserEntity e");
+
+            assertTrue(users.stream().allMatch(session::isReadOnly));
+            assertFalse(session.isDefaultReadOnly());
+            assertEquals(FlushMode.AUTO, session.getHibernateFlushMode());
+
+            users.forEach(user -> user.setUsername("changed"));
+        });
+
+        assertEquals(0, userDao.count("e.username = ?1", "changed"));
+    }
+
+    @Test
+    void testReadOnlyQueriesDoNotAutoFlush() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.persist(createUserEntity("pending", "pending@mail"));
+
+            assertEquals(0, userDao.readOnly().count());
+            assertEquals(1, userDao.count());
+
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void testReadOnlySettingsRestoredWhenStreamNotClosed() throws Exception {
+        userDao.insert(createUserEntity("unclosed", "unclosed@mail"));
+
+        var restoredReadOnly = new AtomicReference<Boolean>();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            var session = entityManager.unwrap(Session.class);
+
+            userDao.readOnly().fetchStreamByQuery("select e from UserEntity e");
+
+            assertTrue(session.isDefaultReadOnly());
+
+            //registered after the one of the view, so it sees the settings once restored
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    restoredReadOnly.set(session.isDefaultReadOnly());
+                }
+            });
+        });
+
+        assertFalse(restoredReadOnly.get());
+    }
+
+    @Test
+    void testReadOnlyStreamRequiresTransaction() {
+        var readOnly = userDao.readOnly();
+
+        assertThrows(IllegalTransactionStateException.class, () -> readOnly.fetchStreamByQuery("select e from UserEntity e"));
+    }
+
+    @Test
+    void testFetchProjections() throws Exception {
+        userDao.insertAll(IntStream.range(0, 5)
+                .mapToObj(i -> createUserEntity("user" + i, "user" + i + "@mail")));
+
+        var login = userDao.fetchProjection("select e.username as username, e.email as email from UserEntity e where e.username = ?1",
+                UserLogin.class, "user3");
+
+        assertEquals(new UserLogin("user3", "user3@mail"), login);
+
+        var names = userDao.fetchProjectionList("select e.username as username from UserEntity e where e.username <> :excluded order by e.username",
+                UserName.class, Map.of("excluded", "user0"));
+
+        assertEquals(List.of("user1", "user2", "user3", "user4"), names.stream().map(UserName::getUsername).toList());
+        assertNull(userDao.fetchProjection("select e.username, e.email from UserEntity e where e.username = ?1", UserLogin.class, "none"));
+    }
+
+    @Test
+    void testStreamProjectionsKeepsPersistenceContextEmpty() throws Exception {
+        userDao.insertAll(IntStream.range(0, 100)
+                .mapToObj(i -> createUserEntity("user" + i, "user" + i + "@mail")));
+
+        var session = entityManager.unwrap(Session.class);
+
+        var streamed = transactionTemplate.execute(status -> {
+            try (var logins = userDao.fetchProjectionStream("select e.username, e.email from UserEntity e", UserLogin.class)) {
+                var count = logins.filter(login -> login.email().endsWith("@mail")).count();
+
+                assertEquals(0, session.getStatistics().getEntityCount());
+
+                return count;
+            }
+        });
+
+        assertEquals(100, streamed);
+    }
+
+    record UserLogin(String username, String email) {
+    }
+
+    interface UserName {
+        String getUsername();
+    }
+
     private UserEntity createUserEntity(String name, String email) {
         var user = new UserEntity();
 
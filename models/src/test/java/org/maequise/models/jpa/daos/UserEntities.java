@@ -0,0 +1,27 @@
+package org.maequise.models.jpa.daos;
+
+import org.maequise.models.entities.UserEntity;
+
+/**
+ * <p>Users of the tests, not persisted</p>
+ */
+public final class UserEntities {
+    private UserEntities() {
+    }
+
+    /**
+     * @return a user named {@code name}, with the email {@code name@mail}
+     */
+    public static UserEntity createUserEntity(String name) {
+        return createUserEntity(name, name + "@mail");
+    }
+
+    public static UserEntity createUserEntity(String name, String email) {
+        var user = new UserEntity();
+
+        user.setUsername(name);
+        user.setEmail(email);
+
+        return user;
+    }
+}
@@ -0,0 +1,9 @@
+package org.maequise.models.jpa.daos;
+
+import org.maequise.models.entities.VersionedEntity;
+import org.maequise.models.jpa.AbstractJpa;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class VersionedDao extends AbstractJpa<Integer, VersionedEntity> {
+}
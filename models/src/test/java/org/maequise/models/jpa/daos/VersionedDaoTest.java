@@ -0,0 +1,204 @@
+package org.maequise.models.jpa.daos;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.maequise.commons.exceptions.UpdateException;
+import org.maequise.models.entities.VersionedEntity;
+import org.maequise.models.jpa.writebehind.WriteBehindJpaDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "datasource.statistics.enabled=true")
+@ActiveProfiles("test")
+class VersionedDaoTest {
+    @Autowired
+    private VersionedDao versionedDao;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void init() {
+        versionedDao.deleteAll();
+
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @Test
+    void testUpdateAllWithoutSelect() throws Exception {
+        var entities = insert(10);
+        entities.forEach(entity -> entity.setName("updated " + entity.getId()));
+
+        statistics.clear();
+
+        assertEquals(10, versionedDao.updateAll(entities));
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(10, statistics.getEntityUpdateCount());
+        assertTrue(entities.stream().allMatch(entity -> entity.getVersion() == 1));
+
+        var reloaded = versionedDao.findById(entities.get(3).getId());
+        assertEquals("updated " + reloaded.getId(), reloaded.getName());
+    }
+
+    @Test
+    void testUpdateAllStaleVersion() throws Exception {
+        var entity = insert(1).get(0);
+
+        var stale = new VersionedEntity();
+        stale.setId(entity.getId());
+        stale.setName("stale");
+        stale.setVersion(entity.getVersion());
+
+        entity.setName("first");
+        versionedDao.updateAll(List.of(entity));
+
+        var staleEntities = List.of(stale);
+
+        assertThrows(UpdateException.class, () -> versionedDao.updateAll(staleEntities));
+        assertEquals("first", versionedDao.findById(entity.getId()).getName());
+    }
+
+    @Test
+    void testUpdateFields() throws Exception {
+        var entity = insert(1).get(0);
+
+        statistics.clear();
+
+        assertTrue(versionedDao.updateFields(entity.getId(), Map.of("counter", 42)));
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        var reloaded = versionedDao.findById(entity.getId());
+        assertEquals(42, reloaded.getCounter());
+        assertEquals(entity.getName(), reloaded.getName());
+        assertEquals(1, reloaded.getVersion());
+    }
+
+    @Test
+    void testUpdateFieldsWithExpectedVersion() throws Exception {
+        var entity = insert(1).get(0);
+        var id = entity.getId();
+        var fields = Map.<String, Object>of("name", "checked");
+
+        assertTrue(versionedDao.updateFields(id, 0, fields));
+        var conflict = assertThrows(UpdateException.class, () -> versionedDao.updateFields(id, 0, fields));
+        //an expected conflict, reported without stack trace
+        assertEquals(0, conflict.getStackTrace().length);
+        assertFalse(versionedDao.updateFields(-1, fields));
+    }
+
+    @Test
+    void testDeleteAllByIdWithoutSelect() throws Exception {
+        var ids = insert(5).stream().map(VersionedEntity::getId).toList();
+
+        statistics.clear();
+
+        assertTrue(versionedDao.deleteById(ids.get(0)));
+        assertFalse(versionedDao.deleteById(ids.get(0)));
+        assertEquals(3, versionedDao.deleteAllById(ids.subList(1, 4)));
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertNull(versionedDao.findById(ids.get(2)));
+        assertNotNull(versionedDao.findById(ids.get(4)));
+    }
+
+    @Test
+    void testFindAllByIdInOrder() throws Exception {
+        var ids = insert(5).stream().map(VersionedEntity::getId).toList();
+        var requested = List.of(ids.get(3), -1, ids.get(0), ids.get(4));
+
+        statistics.clear();
+
+        var entities = versionedDao.findAllById(requested);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(4, entities.size());
+        assertEquals(ids.get(3), entities.get(0).getId());
+        assertNull(entities.get(1));
+        assertEquals(ids.get(0), entities.get(2).getId());
+        assertEquals(ids.get(4), entities.get(3).getId());
+    }
+
+    @Test
+    void testFindAllByIdSkipsManagedEntities() throws Exception {
+        var ids = insert(3).stream().map(VersionedEntity::getId).toList();
+
+        statistics.clear();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.find(VersionedEntity.class, ids.get(0));
+
+            assertEquals(3, versionedDao.findAllById(ids).size());
+        });
+
+        //the second select only looks for the 2 IDs not managed yet
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(3, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testWriteBehindRetryKeepsVersion() throws Exception {
+        var writeBehind = new WriteBehindJpaDao<Integer, VersionedEntity>(versionedDao, 10, 100, Duration.ofHours(1), 1) {
+        };
+
+        try {
+            var entities = insert(2);
+            entities.forEach(entity -> entity.setName("updated " + entity.getId()));
+
+            for (var entity : entities) {
+                writeBehind.update(entity);
+            }
+
+            //fails the batch of both entities, then only the deleted one once isolated
+            versionedDao.deleteById(entities.get(1).getId());
+
+            assertThrows(UpdateException.class, writeBehind::flush);
+
+            var written = versionedDao.findById(entities.get(0).getId());
+
+            assertEquals("updated " + written.getId(), written.getName());
+            assertEquals(1, written.getVersion());
+            assertEquals(1, entities.get(0).getVersion());
+            assertEquals(0, entities.get(1).getVersion());
+        } finally {
+            writeBehind.destroy();
+        }
+    }
+
+    private List<VersionedEntity> insert(int count) throws Exception {
+        var entities = IntStream.range(0, count).mapToObj(i -> {
+            var entity = new VersionedEntity();
+            entity.setName("entity " + i);
+            entity.setCounter(i);
+
+            return entity;
+        }).toList();
+
+        versionedDao.insertAll(entities);
+
+        return entities;
+    }
+}
@@ -0,0 +1,102 @@
+package org.maequise.models.jpa.daos;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.maequise.commons.exceptions.UpdateException;
+import org.maequise.models.entities.UserEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.stream.IntStream;
+
+import static org.maequise.models.jpa.daos.UserEntities.createUserEntity;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"datasource.url=jdbc:h2:mem:write-behind", "datasource.write-behind.enabled=true",
+        "datasource.write-behind.batch-size=5", "datasource.write-behind.flush-interval=1h", "datasource.write-behind.max-attempts=2"})
+@ActiveProfiles("test")
+class WriteBehindUserDaoTest {
+    @Autowired
+    private WriteBehindUserDao writeBehindUserDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    @BeforeEach
+    void init() throws Exception {
+        writeBehindUserDao.flush();
+        userDao.deleteAll();
+    }
+
+    @Test
+    void testLastUpdateWritten() throws Exception {
+        var user = userDao.insert(createUserEntity("initial"));
+
+        for (var i = 0; i < 100; i++) {
+            user.setUsername("update" + i);
+            writeBehindUserDao.update(copy(user));
+        }
+
+        //read-your-writes before the flush
+        assertEquals("update99", writeBehindUserDao.findById(user.getId()).getUsername());
+        assertEquals("initial", userDao.findById(user.getId()).getUsername());
+        assertEquals(1, writeBehindUserDao.pendingCount());
+
+        assertEquals(1, writeBehindUserDao.flush());
+
+        assertEquals("update99", userDao.findById(user.getId()).getUsername());
+        assertEquals("update99", writeBehindUserDao.findById(user.getId()).getUsername());
+    }
+
+    @Test
+    void testFlushedOnBatchSize() throws Exception {
+        for (var i = 0; i < 5; i++) {
+            var user = userDao.insert(createUserEntity("user" + i));
+
+            user.setEmail("changed" + i + "@mail");
+            writeBehindUserDao.update(user);
+        }
+
+        var deadline = System.currentTimeMillis() + 5_000;
+
+        while (userDao.count("e.email like 'changed%'") < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(5, userDao.count("e.email like 'changed%'"));
+        assertEquals(0, writeBehindUserDao.pendingCount());
+    }
+
+    @Test
+    void testDeletedRowDoesNotBlockTheBuffer() throws Exception {
+        var users = IntStream.range(0, 3)
+                .mapToObj(i -> createUserEntity("user" + i))
+                .toList();
+
+        userDao.insertAll(users);
+        users.forEach(user -> user.setEmail("changed@mail"));
+
+        for (var user : users) {
+            writeBehindUserDao.update(user);
+        }
+
+        userDao.deleteById(users.get(1).getId());
+
+        assertThrows(UpdateException.class, writeBehindUserDao::flush);
+        assertEquals(2, userDao.count("e.email = 'changed@mail'"));
+        assertEquals(1, writeBehindUserDao.pendingCount());
+
+        //dropped on its second attempt
+        assertThrows(UpdateException.class, writeBehindUserDao::flush);
+        assertEquals(0, writeBehindUserDao.pendingCount());
+    }
+
+    private UserEntity copy(UserEntity user) {
+        var copy = createUserEntity(user.getUsername());
+
+        copy.setId(user.getId());
+
+        return copy;
+    }
+}
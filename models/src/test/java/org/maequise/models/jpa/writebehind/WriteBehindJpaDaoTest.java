@@ -0,0 +1,343 @@
+package org.maequise.models.jpa.writebehind;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.maequise.commons.exceptions.UpdateException;
+import org.maequise.models.config.TenantIdentifierResolver;
+import org.maequise.models.jpa.JpaDao;
+import org.maequise.models.jpa.MockAbstractJpa.MockEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class WriteBehindJpaDaoTest {
+    private final List<List<MockEntity>> flushed = new CopyOnWriteArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private final JpaDao<Integer, MockEntity> delegate = mock(JpaDao.class);
+
+    private WriteBehindJpaDao<Integer, MockEntity> writeBehind;
+
+    @AfterEach
+    void close() throws Exception {
+        if (writeBehind != null) {
+            writeBehind.destroy();
+        }
+    }
+
+    @Test
+    void testCoalesceUpdatesById() throws Exception {
+        recordFlushes();
+        this.writeBehind = new MockWriteBehindDao(delegate, 10, 100, Duration.ofHours(1));
+
+        writeBehind.update(createEntity(1, "first"));
+        writeBehind.update(createEntity(2, "other"));
+        writeBehind.update(createEntity(1, "last"));
+
+        assertEquals(2, writeBehind.pendingCount());
+        assertEquals("last", writeBehind.findById(1).getAnyProp());
+
+        assertEquals(2, writeBehind.flush());
+
+        assertEquals(1, flushed.size());
+        assertEquals(List.of("last", "other"), flushed.get(0).stream().map(MockEntity::getAnyProp).toList());
+        assertEquals(0, writeBehind.pendingCount());
+        verify(delegate, never()).findById(any());
+    }
+
+    @Test
+    void testFlushInBatches() throws Exception {
+        recordFlushes();
+        this.writeBehind = new MockWriteBehindDao(delegate, 2, 100, Duration.ofHours(1));
+
+        for (var id = 1; id <= 5; id++) {
+            writeBehind.update(createEntity(id, "v" + id));
+        }
+
+        writeBehind.destroy();
+
+        assertEquals(5, flushed.stream().mapToInt(List::size).sum());
+        assertTrue(flushed.stream().allMatch(batch -> batch.size() <= 2));
+    }
+
+    @Test
+    void testSizeTriggersFlush() throws Exception {
+        var done = new CountDownLatch(1);
+
+        when(delegate.updateAll(anyCollection())).thenAnswer(invocation -> {
+            done.countDown();
+            return invocation.getArgument(0, Collection.class).size();
+        });
+
+        this.writeBehind = new MockWriteBehindDao(delegate, 3, 100, Duration.ofHours(1));
+
+        for (var id = 1; id <= 3; id++) {
+            writeBehind.update(createEntity(id, "v" + id));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testBackPressure() throws Exception {
+        var flushing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        when(delegate.updateAll(anyCollection())).thenAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            return invocation.getArgument(0, Collection.class).size();
+        });
+
+        this.writeBehind = new MockWriteBehindDao(delegate, 2, 2, Duration.ofHours(1));
+
+        //fills the buffer, triggering a flush blocked on the latch
+        writeBehind.update(createEntity(1, "a"));
+        writeBehind.update(createEntity(2, "b"));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+        //the buffer is empty again while the first flush is in flight
+        writeBehind.update(createEntity(3, "c"));
+        writeBehind.update(createEntity(4, "d"));
+        assertEquals("a", writeBehind.findById(1).getAnyProp());
+
+        var blocked = new Thread(() -> {
+            try {
+                writeBehind.update(createEntity(5, "e"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.start();
+
+        blocked.join(200);
+        assertTrue(blocked.isAlive());
+
+        //coalesced with a pending ID, so it doesn't wait
+        writeBehind.update(createEntity(3, "c2"));
+
+        release.countDown();
+        blocked.join(5_000);
+
+        assertFalse(blocked.isAlive());
+    }
+
+    @Test
+    void testFailedBatchIsKept() throws Exception {
+        when(delegate.updateAll(anyCollection()))
+                .thenThrow(new UpdateException("error"))
+                .thenAnswer(invocation -> invocation.getArgument(0, Collection.class).size());
+
+        this.writeBehind = new MockWriteBehindDao(delegate, 10, 100, Duration.ofHours(1));
+
+        writeBehind.update(createEntity(1, "a"));
+
+        assertThrows(UpdateException.class, writeBehind::flush);
+        assertEquals(1, writeBehind.pendingCount());
+        assertEquals("a", writeBehind.findById(1).getAnyProp());
+
+        assertEquals(1, writeBehind.flush());
+        assertEquals(0, writeBehind.pendingCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailingEntityIsIsolatedThenDropped() throws Exception {
+        when(delegate.updateAll(anyCollection())).thenAnswer(invocation -> {
+            var batch = List.copyOf((Collection<MockEntity>) invocation.getArgument(0));
+
+            if (batch.stream().anyMatch(entity -> entity.getId() == 2)) {
+                throw new UpdateException("row deleted");
+            }
+
+            flushed.add(batch);
+            return batch.size();
+        });
+
+        var dao = new MockWriteBehindDao(delegate, 10, 100, Duration.ofHours(1), 2);
+        this.writeBehind = dao;
+
+        for (var id = 1; id <= 4; id++) {
+            writeBehind.update(createEntity(id, "v" + id));
+        }
+
+        assertThrows(UpdateException.class, writeBehind::flush);
+        assertEquals(List.of(1, 3, 4), flushed.stream().flatMap(List::stream).map(MockEntity::getId).sorted().toList());
+        assertEquals(1, writeBehind.pendingCount());
+        assertTrue(dao.deadLetters.isEmpty());
+
+        assertThrows(UpdateException.class, writeBehind::flush);
+        assertEquals(0, writeBehind.pendingCount());
+        assertEquals(List.of(2), dao.deadLetters.stream().map(MockEntity::getId).toList());
+
+        assertEquals(0, writeBehind.flush());
+    }
+
+    @Test
+    void testUnavailableDatabaseStopsTheFlush() throws Exception {
+        when(delegate.updateAll(anyCollection())).thenThrow(new CannotCreateTransactionException("down"));
+
+        var dao = new MockWriteBehindDao(delegate, 10, 100, Duration.ofHours(1), 2);
+        this.writeBehind = dao;
+
+        //one batch per tenant
+        for (var id = 1; id <= 4; id++) {
+            var entity = createEntity(id, "v" + id);
+
+            TenantIdentifierResolver.onTenant(id <= 2 ? "alpha" : "beta", () -> {
+                writeBehind.update(entity);
+                return null;
+            });
+        }
+
+        //neither split nor counted as attempts, the batch of the second tenant isn't tried
+        assertThrows(UpdateException.class, writeBehind::flush);
+        assertThrows(UpdateException.class, writeBehind::flush);
+
+        verify(delegate, times(2)).updateAll(anyCollection());
+        assertEquals(4, writeBehind.pendingCount());
+        assertTrue(dao.deadLetters.isEmpty());
+
+        reset(delegate);
+        recordFlushes();
+        assertEquals(4, writeBehind.flush());
+    }
+
+    @Test
+    void testRetriesCountAgainstMaxPending() throws Exception {
+        //the batch, then each of its halves
+        when(delegate.updateAll(anyCollection()))
+                .thenThrow(new UpdateException("error"), new UpdateException("error"), new UpdateException("error"))
+                .thenAnswer(invocation -> invocation.getArgument(0, Collection.class).size());
+
+        this.writeBehind = new MockWriteBehindDao(delegate, 3, 3, Duration.ofHours(1), 10);
+
+        writeBehind.update(createEntity(1, "a"));
+        writeBehind.update(createEntity(2, "b"));
+        assertThrows(UpdateException.class, writeBehind::flush);
+
+        //the 2 failed updates and this one fill the buffer
+        writeBehind.update(createEntity(3, "c"));
+        assertEquals(3, writeBehind.pendingCount());
+
+        var blocked = new Thread(() -> {
+            try {
+                writeBehind.update(createEntity(4, "d"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.start();
+
+        blocked.join(200);
+        assertTrue(blocked.isAlive());
+
+        assertEquals(3, writeBehind.flush());
+        blocked.join(5_000);
+
+        assertFalse(blocked.isAlive());
+        assertEquals(1, writeBehind.pendingCount());
+    }
+
+    @Test
+    void testFullRetriesAreDropped() throws Exception {
+        var flushing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        when(delegate.updateAll(anyCollection())).thenAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            throw new UpdateException("error");
+        });
+
+        var dao = new MockWriteBehindDao(delegate, 3, 3, Duration.ofHours(1), 10);
+        this.writeBehind = dao;
+
+        writeBehind.update(createEntity(1, "a"));
+        writeBehind.update(createEntity(2, "b"));
+
+        var flush = new Thread(() -> assertThrows(UpdateException.class, writeBehind::flush));
+        flush.start();
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+        //buffered while the first flush is in flight, then retried along with its failed updates
+        writeBehind.update(createEntity(3, "c"));
+        writeBehind.update(createEntity(4, "d"));
+        release.countDown();
+        flush.join(5_000);
+
+        assertEquals(4, writeBehind.pendingCount());
+        assertThrows(UpdateException.class, writeBehind::flush);
+
+        assertEquals(3, writeBehind.pendingCount());
+        assertEquals(1, dao.deadLetters.size());
+
+        reset(delegate);
+        recordFlushes();
+        assertEquals(3, writeBehind.flush());
+    }
+
+    @Test
+    void testClosed() throws Exception {
+        recordFlushes();
+        this.writeBehind = new MockWriteBehindDao(delegate, 10, 100, Duration.ofHours(1));
+
+        writeBehind.update(createEntity(1, "a"));
+        writeBehind.destroy();
+
+        assertEquals(1, flushed.size());
+        assertThrows(IllegalStateException.class, () -> writeBehind.update(createEntity(2, "b")));
+        assertThrows(IllegalArgumentException.class, () -> new MockWriteBehindDao(delegate, 10, 5, Duration.ofHours(1)));
+    }
+
+    @Test
+    void testUpdateWithoutId() {
+        this.writeBehind = new MockWriteBehindDao(delegate, 10, 100, Duration.ofHours(1));
+
+        assertThrows(IllegalArgumentException.class, () -> writeBehind.update(createEntity(null, "a")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recordFlushes() throws UpdateException {
+        when(delegate.updateAll(anyCollection())).thenAnswer(invocation -> {
+            var batch = List.copyOf((Collection<MockEntity>) invocation.getArgument(0));
+            flushed.add(batch);
+            return batch.size();
+        });
+    }
+
+    private MockEntity createEntity(Integer id, String value) {
+        var entity = new MockEntity();
+
+        entity.setId(id);
+        entity.setAnyProp(value);
+
+        return entity;
+    }
+
+    private static class MockWriteBehindDao extends WriteBehindJpaDao<Integer, MockEntity> {
+        private final List<MockEntity> deadLetters = new CopyOnWriteArrayList<>();
+
+        MockWriteBehindDao(JpaDao<Integer, MockEntity> delegate, int batchSize, int maxPending, Duration flushInterval) {
+            super(delegate, batchSize, maxPending, flushInterval);
+        }
+
+        MockWriteBehindDao(JpaDao<Integer, MockEntity> delegate, int batchSize, int maxPending, Duration flushInterval, int maxAttempts) {
+            super(delegate, batchSize, maxPending, flushInterval, maxAttempts);
+        }
+
+        @Override
+        protected void deadLetter(MockEntity entity, Exception cause) {
+            deadLetters.add(entity);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.maequise.models.monitoring;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ConnectionPoolMetricsTest {
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPoolMetersRegistered() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(registry);
+
+        var config = new HikariConfig();
+        config.setPoolName("metrics");
+        config.setJdbcUrl("jdbc:h2:mem:metrics");
+
+        try (var pool = new HikariDataSource(config)) {
+            new ConnectionPoolMetrics(pool, provider);
+
+            try (var connection = pool.getConnection()) {
+                assertEquals(1, registry.get("hikaricp.connections.active").tag("pool", "metrics").gauge().value());
+            }
+
+            assertTrue(registry.get("hikaricp.connections.acquire").tag("pool", "metrics").timer().count() >= 1);
+            assertNotNull(registry.get("hikaricp.connections.pending").tag("pool", "metrics").gauge());
+        }
+    }
+}
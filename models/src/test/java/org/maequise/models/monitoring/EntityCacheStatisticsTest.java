@@ -0,0 +1,116 @@
+package org.maequise.models.monitoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.daos.UserDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"datasource.cache.enabled=true", "datasource.cache.regions.users.max-size=2"})
+@ActiveProfiles("test")
+class EntityCacheStatisticsTest {
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private EntityCacheStatistics entityCacheStatistics;
+
+    @BeforeEach
+    void init() {
+        userDao.deleteAll();
+    }
+
+    @Test
+    void testFindByIdServedByCache() throws Exception {
+        var user = userDao.insert(createUserEntity("cached"));
+        var before = entityCacheStatistics.region("users");
+
+        assertEquals("cached", userDao.findById(user.getId()).getUsername());
+        assertEquals("cached", userDao.findById(user.getId()).getUsername());
+
+        var after = entityCacheStatistics.region("users");
+
+        assertEquals(before.hits() + 2, after.hits());
+        assertTrue(after.hitRatio() > 0);
+    }
+
+    @Test
+    void testFindAllByIdServedByCache() throws Exception {
+        var cached = userDao.insert(createUserEntity("cached"));
+        var other = userDao.insert(createUserEntity("other"));
+        userDao.findById(cached.getId());
+
+        var before = entityCacheStatistics.region("users");
+        var users = userDao.findAllById(List.of(cached.getId(), other.getId()));
+
+        assertEquals(List.of("cached", "other"), users.stream().map(UserEntity::getUsername).toList());
+        assertTrue(entityCacheStatistics.region("users").hits() > before.hits());
+    }
+
+    @Test
+    void testCacheInvalidatedByUpdate() throws Exception {
+        var user = userDao.insert(createUserEntity("before"));
+        userDao.findById(user.getId());
+
+        user.setUsername("after");
+        userDao.update(user);
+
+        assertEquals("after", userDao.findById(user.getId()).getUsername());
+    }
+
+    @Test
+    void testCacheInvalidatedByDeleteAll() throws Exception {
+        var user = userDao.insert(createUserEntity("deleted"));
+        userDao.findById(user.getId());
+
+        userDao.deleteAll();
+
+        assertNull(userDao.findById(user.getId()));
+    }
+
+    @Test
+    void testQueryCacheInvalidatedByInsert() throws Exception {
+        userDao.insert(createUserEntity("first"));
+
+        assertEquals(1, userDao.fetchListByQuery("select e from UserEntity e").size());
+        var queryHits = entityCacheStatistics.region("default-query-results-region").hits();
+
+        assertEquals(1, userDao.fetchListByQuery("select e from UserEntity e").size());
+        assertEquals(queryHits + 1, entityCacheStatistics.region("default-query-results-region").hits());
+
+        userDao.insert(createUserEntity("second"));
+
+        assertEquals(2, userDao.fetchListByQuery("select e from UserEntity e").size());
+    }
+
+    @Test
+    void testRegionBoundedBySize() throws Exception {
+        for (var i = 0; i < 5; i++) {
+            userDao.insert(createUserEntity("user" + i));
+        }
+
+        //the size based eviction of caffeine is asynchronous
+        var deadline = System.currentTimeMillis() + 5_000;
+        while (entityCacheStatistics.region("users").evictions() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        assertTrue(entityCacheStatistics.region("users").evictions() > 0);
+        assertTrue(entityCacheStatistics.regions().stream().anyMatch(r -> r.region().equals("users")));
+    }
+
+    private UserEntity createUserEntity(String name) {
+        var user = new UserEntity();
+
+        user.setUsername(name);
+        user.setEmail(name + "@mail");
+
+        return user;
+    }
+}
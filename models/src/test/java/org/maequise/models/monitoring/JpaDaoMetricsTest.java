@@ -0,0 +1,144 @@
+package org.maequise.models.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.maequise.commons.exceptions.DeleteException;
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.PurgeOptions;
+import org.maequise.models.jpa.daos.UserDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "datasource.metrics.enabled=true")
+@ActiveProfiles("test")
+class JpaDaoMetricsTest {
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TestConfiguration
+    static class MetricsConfiguration {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Test
+    void testOperationsAreTimedByEntity() throws Exception {
+        var user = new UserEntity();
+        user.setUsername("metrics");
+        user.setEmail("metrics@mail");
+
+        userDao.insert(user);
+        userDao.findById(user.getId());
+
+        var insertTimer = meterRegistry.get(JpaDaoMetrics.OPERATION_TIMER)
+                .tags("entity", "UserEntity", "operation", "insert", "outcome", "success")
+                .timer();
+
+        assertEquals(1, insertTimer.count());
+        assertEquals(3, insertTimer.takeSnapshot().percentileValues().length);
+        assertEquals(1, meterRegistry.get(JpaDaoMetrics.ROWS_SUMMARY).tags("operation", "findById").summary().totalAmount());
+        assertTrue(meterRegistry.find(JpaDaoMetrics.ROWS_SUMMARY).tags("operation", "insert").meters().isEmpty());
+    }
+
+    @Test
+    void testReadOnlyViewIsMeasured() {
+        var before = countCalls();
+
+        userDao.readOnly().count();
+
+        assertEquals(before + 1, countCalls());
+    }
+
+    @Test
+    void testRowsReturned() {
+        userDao.fetchListByQuery("select e from UserEntity e where e.id < 0");
+
+        var rows = meterRegistry.get(JpaDaoMetrics.ROWS_SUMMARY).tags("operation", "fetchListByQuery").summary();
+
+        assertEquals(1, rows.count());
+        assertEquals(0, rows.totalAmount());
+    }
+
+    @Test
+    void testOptionalMissRecordedAsNoRow() {
+        assertTrue(userDao.fetchOptional("select e from UserEntity e where e.username = ?1", "missing").isEmpty());
+
+        var rows = meterRegistry.get(JpaDaoMetrics.ROWS_SUMMARY).tags("operation", "fetchOptional").summary();
+
+        assertEquals(1, rows.count());
+        assertEquals(0, rows.totalAmount());
+    }
+
+    @Test
+    void testMissingIdsRecordedAsNoRow() throws Exception {
+        var found = userDao.insert(user("byid"));
+
+        assertEquals(2, userDao.findAllById(List.of(found.getId(), -1)).size());
+
+        var rows = meterRegistry.get(JpaDaoMetrics.ROWS_SUMMARY).tags("operation", "findAllById").summary();
+
+        assertEquals(1, rows.count());
+        assertEquals(1, rows.totalAmount());
+    }
+
+    @Test
+    void testStreamRowsRecordedOnClose() throws Exception {
+        userDao.insertAll(List.of(user("stream1"), user("stream2")));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try (var stream = userDao.fetchStreamByQueryWithNamedParams(
+                    "select e from UserEntity e where e.username like :prefix", Map.of("prefix", "stream%"))) {
+                assertEquals(2, stream.count());
+            }
+        });
+
+        assertEquals(2, meterRegistry.get(JpaDaoMetrics.ROWS_SUMMARY)
+                .tags("operation", "fetchStreamByQueryWithNamedParams").summary().totalAmount());
+    }
+
+    @Test
+    void testErrorsCountedByExceptionType() {
+        var options = PurgeOptions.builder().predicate("e.unknown = 1").build();
+
+        assertThrows(DeleteException.class, () -> userDao.deleteAllInChunks(options));
+
+        assertEquals(1, meterRegistry.get(JpaDaoMetrics.ERRORS_COUNTER)
+                .tags("operation", "deleteAllInChunks", "exception", "DeleteException").counter().count());
+        assertEquals(1, meterRegistry.get(JpaDaoMetrics.OPERATION_TIMER)
+                .tags("operation", "deleteAllInChunks", "outcome", "error").timer().count());
+    }
+
+    private static UserEntity user(String username) {
+        var user = new UserEntity();
+        user.setUsername(username);
+        user.setEmail(username + "@mail");
+
+        return user;
+    }
+
+    private long countCalls() {
+        var timer = meterRegistry.find(JpaDaoMetrics.OPERATION_TIMER)
+                .tags("entity", "UserEntity", "operation", "count", "outcome", "success")
+                .timer();
+
+        return timer == null ? 0 : timer.count();
+    }
+}
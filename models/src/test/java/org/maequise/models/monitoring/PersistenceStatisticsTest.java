@@ -0,0 +1,81 @@
+package org.maequise.models.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.maequise.models.entities.UserEntity;
+import org.maequise.models.jpa.daos.UserDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "datasource.statistics.enabled=true")
+@ActiveProfiles("test")
+class PersistenceStatisticsTest {
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private PersistenceStatistics persistenceStatistics;
+
+    @Test
+    void testQueryPlanCacheHits() {
+        var before = persistenceStatistics.queryPlanCache();
+
+        for (var i = 0; i < 3; i++) {
+            userDao.fetchListByQuery("select e from UserEntity e where e.email is not null");
+            userDao.fetchListByNamedQuery(UserDao.FIND_BY_USERNAME, Map.of("username", "test"));
+        }
+
+        var after = persistenceStatistics.queryPlanCache();
+
+        assertTrue(after.hits() - before.hits() >= 2);
+        assertTrue(after.hitRatio() > 0);
+    }
+
+    @Test
+    void testSessionFactoryAndQueries() throws Exception {
+        persistenceStatistics.clear();
+
+        var user = new UserEntity();
+        user.setUsername("statistics");
+        userDao.insert(user);
+        userDao.fetchListByQuery("select e from UserEntity e where e.username is not null");
+
+        var sessionFactory = persistenceStatistics.sessionFactory();
+
+        assertEquals(1, sessionFactory.entityInsertCount());
+        assertEquals(1, sessionFactory.queryExecutionCount());
+        assertTrue(sessionFactory.flushCount() >= 1);
+        assertEquals(List.of("select e from UserEntity e where e.username is not null"),
+                persistenceStatistics.queries().stream().map(QueryExecutionStatistics::query).toList());
+    }
+
+    @Test
+    void testToggleAtRuntime() {
+        try {
+            persistenceStatistics.setEnabled(false);
+            userDao.fetchListByQuery("select e from UserEntity e");
+
+            assertFalse(persistenceStatistics.isEnabled());
+
+            persistenceStatistics.setEnabled(true);
+
+            assertEquals(0, persistenceStatistics.sessionFactory().queryExecutionCount());
+        } finally {
+            persistenceStatistics.setEnabled(true);
+        }
+    }
+
+    @Test
+    void testConnectionPools() {
+        var pools = persistenceStatistics.connectionPools();
+
+        assertEquals(1, pools.size());
+        assertEquals("primary", pools.get(0).pool());
+        assertTrue(pools.get(0).totalConnections() >= pools.get(0).activeConnections());
+    }
+}
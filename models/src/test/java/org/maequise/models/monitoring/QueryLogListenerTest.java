@@ -0,0 +1,126 @@
+package org.maequise.models.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(OutputCaptureExtension.class)
+class QueryLogListenerTest {
+    private static final String SELECT = "select u.USER_ID from USERS u where u.USER_ID = ?";
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testSlowStatementIsLogged(CapturedOutput output) throws Exception {
+        var listener = new QueryLogListener(Duration.ofMillis(100), 20, true);
+
+        listener.afterQuery(execution(20), List.of(query(SELECT, 1)));
+        assertFalse(output.getOut().contains("Slow statement"));
+
+        listener.afterQuery(execution(150), List.of(query(SELECT, "x".repeat(80))));
+        assertTrue(output.getOut().contains("Slow statement on primary (150 ms): " + SELECT));
+        assertTrue(output.getOut().contains("...(80 chars)"));
+    }
+
+    @Test
+    void testParametersMaskedByDefault(CapturedOutput output) throws Exception {
+        var listener = new QueryLogListener(Duration.ofMillis(100), 20, false);
+
+        listener.afterQuery(execution(150), List.of(query(SELECT, "user@mail")));
+
+        assertTrue(output.getOut().contains(SELECT + " with params [?]"));
+        assertFalse(output.getOut().contains("user@mail"));
+    }
+
+    @Test
+    void testRepeatedStatementIsReportedOncePerTransaction(CapturedOutput output) throws Exception {
+        var listener = new QueryLogListener(Duration.ofSeconds(1), 2, false);
+
+        //outside a transaction nothing is counted
+        for (var i = 0; i < 5; i++) {
+            listener.afterQuery(execution(1), List.of(query(SELECT, i)));
+        }
+        assertFalse(output.getOut().contains("N+1"));
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        for (var i = 0; i < 5; i++) {
+            listener.afterQuery(execution(1), List.of(query(SELECT, i)));
+        }
+
+        assertEquals(1, output.getOut().split("likely an N\\+1 select", -1).length - 1);
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+    }
+
+    @Test
+    void testWritesAndBatchesAreNotReported(CapturedOutput output) throws Exception {
+        var listener = new QueryLogListener(Duration.ofSeconds(1), 2, false);
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        for (var i = 0; i < 5; i++) {
+            var batch = execution(1);
+            batch.setBatch(true);
+
+            listener.afterQuery(batch, List.of(query(SELECT, i)));
+            listener.afterQuery(execution(1), List.of(query("update USERS set USERNAME = ? where USER_ID = ?", "name", i)));
+        }
+
+        assertFalse(output.getOut().contains("N+1"));
+    }
+
+    @Test
+    void testSummarizeBatchParams() throws Exception {
+        var query = query("insert into USERS values (?, ?)", 1, null);
+        query.getParametersList().add(List.of(setParameter(1, 2), setParameter(2, new byte[16])));
+        query.getParametersList().add(List.of(setParameter(1, 3), setParameter(2, new byte[16])));
+
+        assertEquals("[1, null] (+2 more)", QueryLogListener.summarizeParams(query, true));
+        assertEquals("[?, ?] (+2 more)", QueryLogListener.summarizeParams(query, false));
+        assertEquals("[]", QueryLogListener.summarizeParams(new QueryInfo(SELECT), true));
+    }
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        var execution = new ExecutionInfo();
+
+        execution.setDataSourceName("primary");
+        execution.setElapsedTime(elapsedMillis);
+
+        return execution;
+    }
+
+    private static QueryInfo query(String sql, Object... values) throws Exception {
+        var query = new QueryInfo(sql);
+        var parameters = new ArrayList<ParameterSetOperation>();
+
+        for (var i = 0; i < values.length; i++) {
+            parameters.add(setParameter(i + 1, values[i]));
+        }
+        query.getParametersList().add(parameters);
+
+        return query;
+    }
+
+    private static ParameterSetOperation setParameter(int index, Object value) throws Exception {
+        return new ParameterSetOperation(PreparedStatement.class.getMethod("setObject", int.class, Object.class),
+                new Object[]{index, value});
+    }
+}